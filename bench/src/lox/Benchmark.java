@@ -0,0 +1,185 @@
+package lox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Measures each stage of the pipeline (lexing, parsing, resolving, interpreting, and compiling plus running on
+// the VM) over the Lox programs in bench/corpus, in the manner of a JMH throughput benchmark: a few warmup
+// iterations, then timed iterations reporting operations per second and bytes allocated per operation.
+//
+//   java -cp out Benchmark [-w warmups] [-i iterations] [-t millis] [--corpus dir] [stage|program ...]
+//
+// Any remaining arguments restrict the run to benchmarks whose stage or program name matches one of them. The
+// lex stage also reports throughput in MB/s on an 8 MB source built from the corpus, under the name "large".
+public class Benchmark {
+    private static final String[] STAGES = { "lex", "parse", "resolve", "interpret", "vm" };
+    private static final int LARGE_SOURCE_BYTES = 8 << 20;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results are stored here so the JIT cannot discard the work that produced them.
+    static volatile Object sink;
+
+    private interface Operation {
+        Object run();
+    }
+
+    private record Result(double score, double error, double bytesPerOp) {}
+
+    public static void main(String[] args) throws IOException {
+        int warmups = 3;
+        int iterations = 5;
+        long millis = 1000;
+        Path corpus = Paths.get("bench", "corpus");
+        List<String> filters = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-w" -> warmups = Integer.parseInt(args[++i]);
+                case "-i" -> iterations = Integer.parseInt(args[++i]);
+                case "-t" -> millis = Long.parseLong(args[++i]);
+                case "--corpus" -> corpus = Paths.get(args[++i]);
+                default -> filters.add(args[i]);
+            }
+        }
+
+        List<Path> programs;
+        try (Stream<Path> files = Files.list(corpus)) {
+            programs = files.filter(path -> path.toString().endsWith(".lox")).sorted().toList();
+        }
+
+        PrintStream out = System.out;
+        out.printf("%-10s %-10s %5s %14s %12s %10s %14s%n",
+                "Stage", "Program", "Cnt", "Score", "Error", "Units", "Alloc B/op");
+
+        // Scripts print as they run; keep that out of the report.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (String stage : STAGES) {
+                for (Path program : programs) {
+                    String name = program.getFileName().toString().replace(".lox", "");
+                    if (!filters.isEmpty() && !filters.contains(stage) && !filters.contains(name)) continue;
+
+                    String source = Files.readString(program, StandardCharsets.UTF_8);
+                    Result result = measure(prepare(stage, source), warmups, iterations, millis * 1_000_000);
+                    out.printf("%-10s %-10s %5d %14.3f %12.3f %10s %14.1f%n",
+                            stage, name, iterations, result.score, result.error, "ops/s", result.bytesPerOp);
+                }
+            }
+
+            // Lexing throughput on a large source, as the corpus programs are too small to show it.
+            if (filters.isEmpty() || filters.contains("lex") || filters.contains("large")) {
+                String source = largeSource(programs, LARGE_SOURCE_BYTES);
+                Diagnostics diagnostics = new Diagnostics(System.err);
+                Result result = measure(() -> new Lexer(source, diagnostics).lex(), warmups, iterations,
+                        millis * 1_000_000);
+                double megabytes = source.length() / 1e6;
+                out.printf("%-10s %-10s %5d %14.3f %12.3f %10s %14.1f%n", "lex", "large", iterations,
+                        result.score * megabytes, result.error * megabytes, "MB/s", result.bytesPerOp);
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    // Concatenates the corpus until it is at least the given size. The programs are ASCII, so characters and
+    // bytes are the same count.
+    private static String largeSource(List<Path> programs, int size) throws IOException {
+        StringBuilder source = new StringBuilder(size + 4096);
+        while (source.length() < size) {
+            for (Path program : programs) {
+                source.append(Files.readString(program, StandardCharsets.UTF_8)).append('\n');
+            }
+        }
+        return source.toString();
+    }
+
+    // Runs the earlier stages once up front so each operation measures only its own stage.
+    private static Operation prepare(String stage, String source) {
+        Diagnostics diagnostics = new Diagnostics(System.err);
+        TokenStream tokens = new Lexer(source, diagnostics).lex();
+        List<Stmt> statements = new Parser(tokens, diagnostics).parse();
+        new Resolver(diagnostics).resolve(statements);
+        if (diagnostics.hadError()) throw new IllegalStateException("Benchmark program does not compile.");
+        // Both backends run the optimized tree, as they do outside the benchmark.
+        List<Stmt> optimized = new Optimizer().optimize(statements);
+
+        return switch (stage) {
+            case "lex" -> () -> new Lexer(source, diagnostics).lex();
+            case "parse" -> () -> new Parser(tokens, diagnostics).parse();
+            case "resolve" -> () -> {
+                new Resolver(diagnostics).resolve(statements);
+                return statements;
+            };
+            case "interpret" -> () -> {
+                Interpreter interpreter = new Interpreter(diagnostics, System.out);
+                interpreter.interpret(optimized);
+                return interpreter;
+            };
+            case "vm" -> () -> {
+                VM vm = new VM(diagnostics, System.out);
+                vm.interpret(Compiler.compile(optimized, diagnostics));
+                return vm;
+            };
+            default -> throw new IllegalArgumentException("Unknown stage '" + stage + "'.");
+        };
+    }
+
+    private static Result measure(Operation operation, int warmups, int iterations, long nanos) {
+        for (int i = 0; i < warmups; i++) {
+            iterate(operation, nanos, null);
+        }
+
+        double[] scores = new double[iterations];
+        long operations = 0;
+        long allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            long[] totals = new long[2];
+            scores[i] = iterate(operation, nanos, totals);
+            operations += totals[0];
+            allocated += totals[1];
+        }
+
+        double mean = 0;
+        for (double score : scores) mean += score;
+        mean /= iterations;
+
+        double variance = 0;
+        for (double score : scores) variance += (score - mean) * (score - mean);
+        double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+
+        return new Result(mean, error, (double) allocated / operations);
+    }
+
+    // Runs the operation repeatedly for one iteration and returns operations per second. When totals is given,
+    // the operation count and bytes allocated by this thread are added to it.
+    private static double iterate(Operation operation, long nanos, long[] totals) {
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + nanos;
+        long operations = 0;
+        long now;
+        do {
+            sink = operation.run();
+            operations++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        if (totals != null) {
+            totals[0] += operations;
+            totals[1] += allocated;
+        }
+        return operations / ((now - start) / 1e9);
+    }
+}
@@ -1,6 +0,0 @@
-import java.util.List;
-
-public interface LoxCallable {
-    int arity();
-    Object call(Interpreter interpreter, List<Object> arguments);
-}
\ No newline at end of file
@@ -1,8 +0,0 @@
-public class RuntimeError extends RuntimeException {
-    final Token token;
-
-    RuntimeError(Token token, String message) {
-        super(message);
-        this.token = token;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,162 @@
+package lox;
+
+import java.util.List;
+
+class ASTPrinter implements Expr.Visitor<String>, Stmt.Visitor<String> {
+    public static void main(String[] args) {
+        Expr expression = new Expr.Binary(
+                new Expr.Unary(
+                        new Token(TokenType.MINUS, "-", null, 1),
+                        new Expr.Literal(123)
+                ),
+                new Token(TokenType.STAR, "*", null, 1),
+                new Expr.Grouping(new Expr.Literal(45.67)));
+
+        System.out.println(new ASTPrinter().print(expression));
+    }
+
+    String print(Expr expr) {
+        return expr.accept(this);
+    }
+
+    String print(Stmt stmt) {
+        return stmt.accept(this);
+    }
+
+    // Each part is an expression, a statement, a token, or a list of any of those.
+    private String parenthesize(String name, Object... parts) {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("(").append(name);
+        for (Object part : parts) {
+            builder.append(" ");
+            append(builder, part);
+        }
+        builder.append(")");
+
+        return builder.toString();
+    }
+
+    private void append(StringBuilder builder, Object part) {
+        if (part instanceof Expr expr) {
+            builder.append(expr.accept(this));
+        } else if (part instanceof Stmt stmt) {
+            builder.append(stmt.accept(this));
+        } else if (part instanceof Token token) {
+            builder.append(token.lexeme);
+        } else if (part instanceof List<?> list) {
+            builder.append("(");
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) builder.append(" ");
+                append(builder, list.get(i));
+            }
+            builder.append(")");
+        } else {
+            builder.append(part);
+        }
+    }
+
+    @Override
+    public String visitAssignExpr(Expr.Assign expr) {
+        return parenthesize("SET " + expr.name.lexeme + " to ", expr.value);
+    }
+
+    @Override
+    public String visitBinaryExpr(Expr.Binary expression) {
+        return parenthesize(expression.operator.lexeme, expression.lhs, expression.rhs);
+    }
+
+    @Override
+    public String visitCallExpr(Expr.Call expr) {
+        return parenthesize("CALL", expr.callee, expr.arguments);
+    }
+
+    @Override
+    public String visitGetExpr(Expr.Get expr) {
+        return parenthesize("GET " + expr.name.lexeme, expr.object);
+    }
+
+    @Override
+    public String visitGroupingExpr(Expr.Grouping expression) {
+        return parenthesize("group", expression.expression);
+    }
+
+    @Override
+    public String visitLiteralExpr(Expr.Literal expression) {
+        if (expression.value instanceof String string) return "\"" + string + "\"";
+        return expression.value == null ? "nil" : expression.value.toString();
+    }
+
+    @Override
+    public String visitLogicalExpr(Expr.Logical expr) {
+        return parenthesize(expr.operator.lexeme, expr.lhs, expr.rhs);
+    }
+
+    @Override
+    public String visitSetExpr(Expr.Set expr) {
+        return parenthesize("SET " + expr.name.lexeme + " TO ", expr.object, expr.value);
+    }
+
+    @Override
+    public String visitThisExpr(Expr.This expr) {
+        return parenthesize("THIS");
+    }
+
+    @Override
+    public String visitUnaryExpr(Expr.Unary expression) {
+        return parenthesize(expression.operator.lexeme, expression.rhs);
+    }
+
+    @Override
+    public String visitVariableExpr(Expr.Variable expr) {
+        return parenthesize(expr.name.lexeme);
+    }
+
+    @Override
+    public String visitBlockStmt(Stmt.Block stmt) {
+        return parenthesize("block", stmt.statements.toArray());
+    }
+
+    @Override
+    public String visitClassStmt(Stmt.Class stmt) {
+        return parenthesize("class " + stmt.name.lexeme, stmt.methods.toArray());
+    }
+
+    @Override
+    public String visitExpressionStmt(Stmt.Expression stmt) {
+        return parenthesize(";", stmt.expression);
+    }
+
+    @Override
+    public String visitFunctionStmt(Stmt.Function stmt) {
+        return parenthesize("fun " + stmt.name.lexeme, stmt.params, stmt.body);
+    }
+
+    @Override
+    public String visitIfStmt(Stmt.If stmt) {
+        if (stmt.elseBranch == null) return parenthesize("if", stmt.condition, stmt.thenBranch);
+        return parenthesize("if", stmt.condition, stmt.thenBranch, stmt.elseBranch);
+    }
+
+    @Override
+    public String visitPrintStmt(Stmt.Print stmt) {
+        return parenthesize("print", stmt.expression);
+    }
+
+    @Override
+    public String visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.value == null) return parenthesize("return");
+        return parenthesize("return", stmt.value);
+    }
+
+    @Override
+    public String visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer == null) return parenthesize("var " + stmt.name.lexeme);
+        return parenthesize("var " + stmt.name.lexeme, stmt.initializer);
+    }
+
+    @Override
+    public String visitWhileStmt(Stmt.While stmt) {
+        return parenthesize("while", stmt.condition, stmt.body);
+    }
+}
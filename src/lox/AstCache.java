@@ -0,0 +1,552 @@
+package lox;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+// Keeps resolved syntax trees on disk so an unchanged script can skip lexing, parsing and resolving. Entries are
+// named by the SHA-256 of the source and hold a compact binary form of the tree, including the depths and slots
+// the Resolver assigned. The interpreter's runtime caches are not stored; they start out empty as usual.
+class AstCache {
+    private static final int MAGIC = 0x4c4f5841; // "LOXA"
+    // Bump whenever the encoding or the tree changes.
+    private static final int VERSION = 3;
+
+    private final Path directory;
+
+    AstCache(Path directory) {
+        this.directory = directory;
+    }
+
+    // Returns the cached tree for this source, or null if there is none or it cannot be read.
+    List<Stmt> load(byte[] source) {
+        Path path = pathFor(source);
+        if (!Files.isRegularFile(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            return new Reader(buffer).statements();
+        } catch (IOException | RuntimeException e) {
+            // A truncated or corrupt entry is treated as a miss and rewritten.
+            return null;
+        }
+    }
+
+    void store(byte[] source, List<Stmt> statements) {
+        Path path = pathFor(source);
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            // Written aside and moved into place, so a concurrent run never maps a partial entry.
+            temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            BufferedOutputStream stream = new BufferedOutputStream(Files.newOutputStream(temporary));
+            try (DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                new Writer(out).statements(statements);
+            }
+            moveIntoPlace(temporary, path);
+            temporary = null;
+        } catch (IOException | UncheckedIOException e) {
+            // The cache is only an optimization; the script has already been compiled.
+        } finally {
+            if (temporary != null) deleteQuietly(temporary);
+        }
+    }
+
+    private static void moveIntoPlace(Path temporary, Path path) throws IOException {
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // A reader on such a filesystem may then see a partial entry, which load() treats as a miss.
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Nothing more to do; it is only a leftover temporary file.
+        }
+    }
+
+    private Path pathFor(byte[] source) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(source);
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".ast");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Tags for each node kind, with 0 for an absent node.
+    private static final byte NONE = 0;
+
+    private static final byte ASSIGN = 1;
+    private static final byte BINARY = 2;
+    private static final byte CALL = 3;
+    private static final byte GET = 4;
+    private static final byte GROUPING = 5;
+    private static final byte LITERAL = 6;
+    private static final byte LOGICAL = 7;
+    private static final byte SET = 8;
+    private static final byte THIS = 9;
+    private static final byte UNARY = 10;
+    private static final byte VARIABLE = 11;
+
+    private static final byte BLOCK = 1;
+    private static final byte CLASS = 2;
+    private static final byte EXPRESSION = 3;
+    private static final byte FUNCTION = 4;
+    private static final byte IF = 5;
+    private static final byte PRINT = 6;
+    private static final byte RETURN = 7;
+    private static final byte VAR = 8;
+    private static final byte WHILE = 9;
+
+    // Tags for literal values.
+    private static final byte NIL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte NUMBER = 3;
+    private static final byte STRING = 4;
+
+    private static class Writer implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+        private final DataOutputStream out;
+        // Each distinct string is written once; later uses refer to it by index.
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void statements(List<Stmt> statements) throws IOException {
+            varint(statements.size());
+            for (Stmt statement : statements) {
+                statement(statement);
+            }
+        }
+
+        private void statement(Stmt statement) throws IOException {
+            if (statement == null) {
+                out.writeByte(NONE);
+            } else {
+                statement.accept(this);
+            }
+        }
+
+        private void expression(Expr expression) throws IOException {
+            if (expression == null) {
+                out.writeByte(NONE);
+            } else {
+                expression.accept(this);
+            }
+        }
+
+        private void expressions(List<Expr> expressions) throws IOException {
+            varint(expressions.size());
+            for (Expr expression : expressions) {
+                expression(expression);
+            }
+        }
+
+        private void token(Token token) throws IOException {
+            out.writeByte(token.type.ordinal());
+            string(token.lexeme);
+            varint(token.line);
+        }
+
+        private void string(String string) throws IOException {
+            Integer index = strings.get(string);
+            if (index != null) {
+                varint(index);
+                return;
+            }
+
+            // A new string takes the next index and is written out in full.
+            varint(strings.size());
+            strings.put(string, strings.size());
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            out.write(bytes);
+        }
+
+        private void function(Stmt.Function function) throws IOException {
+            varint(function.line);
+            out.writeBoolean(function.hasClosures);
+            token(function.name);
+            varint(function.params.size());
+            for (Token param : function.params) {
+                token(param);
+            }
+            statements(function.body);
+        }
+
+        // The visitors can't throw IOException, so each one tags its node and hands it to a method that can.
+        private Void write(byte tag, IoAction action) {
+            try {
+                out.writeByte(tag);
+                action.run();
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Counts, indices, lines and slots are small and non-negative, so they take one byte in the common case:
+        // seven bits at a time, low bits first, with the high bit set on all but the last byte.
+        private void varint(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        // Statements also record the line they start on.
+        private Void write(byte tag, Stmt stmt, IoAction action) {
+            return write(tag, () -> {
+                varint(stmt.line);
+                action.run();
+            });
+        }
+
+        private interface IoAction {
+            void run() throws IOException;
+        }
+
+        @Override
+        public Void visitAssignExpr(Expr.Assign expr) {
+            return write(ASSIGN, () -> {
+                token(expr.name);
+                expression(expr.value);
+                varint(expr.depth + 1);
+                varint(expr.slot);
+            });
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            return write(BINARY, () -> {
+                expression(expr.lhs);
+                token(expr.operator);
+                expression(expr.rhs);
+            });
+        }
+
+        @Override
+        public Void visitCallExpr(Expr.Call expr) {
+            return write(CALL, () -> {
+                expression(expr.callee);
+                token(expr.paren);
+                expressions(expr.arguments);
+            });
+        }
+
+        @Override
+        public Void visitGetExpr(Expr.Get expr) {
+            return write(GET, () -> {
+                expression(expr.object);
+                token(expr.name);
+            });
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            return write(GROUPING, () -> expression(expr.expression));
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            return write(LITERAL, () -> {
+                if (expr.value == null) {
+                    out.writeByte(NIL);
+                } else if (expr.value instanceof Boolean value) {
+                    out.writeByte(value ? TRUE : FALSE);
+                } else if (expr.value instanceof Double value) {
+                    out.writeByte(NUMBER);
+                    out.writeDouble(value);
+                } else {
+                    out.writeByte(STRING);
+                    string((String) expr.value);
+                }
+            });
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            return write(LOGICAL, () -> {
+                expression(expr.lhs);
+                token(expr.operator);
+                expression(expr.rhs);
+            });
+        }
+
+        @Override
+        public Void visitSetExpr(Expr.Set expr) {
+            return write(SET, () -> {
+                expression(expr.object);
+                token(expr.name);
+                expression(expr.value);
+            });
+        }
+
+        @Override
+        public Void visitThisExpr(Expr.This expr) {
+            return write(THIS, () -> {
+                token(expr.keyword);
+                varint(expr.depth + 1);
+                varint(expr.slot);
+            });
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            return write(UNARY, () -> {
+                token(expr.operator);
+                expression(expr.rhs);
+            });
+        }
+
+        @Override
+        public Void visitVariableExpr(Expr.Variable expr) {
+            return write(VARIABLE, () -> {
+                token(expr.name);
+                varint(expr.depth + 1);
+                varint(expr.slot);
+            });
+        }
+
+        @Override
+        public Void visitBlockStmt(Stmt.Block stmt) {
+            return write(BLOCK, stmt, () -> statements(stmt.statements));
+        }
+
+        @Override
+        public Void visitClassStmt(Stmt.Class stmt) {
+            return write(CLASS, stmt, () -> {
+                token(stmt.name);
+                varint(stmt.methods.size());
+                for (Stmt.Function method : stmt.methods) {
+                    function(method);
+                }
+            });
+        }
+
+        @Override
+        public Void visitExpressionStmt(Stmt.Expression stmt) {
+            return write(EXPRESSION, stmt, () -> expression(stmt.expression));
+        }
+
+        @Override
+        public Void visitFunctionStmt(Stmt.Function stmt) {
+            return write(FUNCTION, () -> function(stmt));
+        }
+
+        @Override
+        public Void visitIfStmt(Stmt.If stmt) {
+            return write(IF, stmt, () -> {
+                expression(stmt.condition);
+                statement(stmt.thenBranch);
+                statement(stmt.elseBranch);
+            });
+        }
+
+        @Override
+        public Void visitPrintStmt(Stmt.Print stmt) {
+            return write(PRINT, stmt, () -> expression(stmt.expression));
+        }
+
+        @Override
+        public Void visitReturnStmt(Stmt.Return stmt) {
+            return write(RETURN, stmt, () -> {
+                token(stmt.keyword);
+                expression(stmt.value);
+                out.writeBoolean(stmt.tailCall);
+            });
+        }
+
+        @Override
+        public Void visitVarStmt(Stmt.Var stmt) {
+            return write(VAR, stmt, () -> {
+                token(stmt.name);
+                expression(stmt.initializer);
+            });
+        }
+
+        @Override
+        public Void visitWhileStmt(Stmt.While stmt) {
+            return write(WHILE, stmt, () -> {
+                expression(stmt.condition);
+                statement(stmt.body);
+            });
+        }
+    }
+
+    private static class Reader {
+        private static final TokenType[] TYPES = TokenType.values();
+
+        private final ByteBuffer in;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        List<Stmt> statements() {
+            int count = varint();
+            List<Stmt> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                statements.add(statement());
+            }
+            return statements;
+        }
+
+        private Stmt statement() {
+            byte tag = in.get();
+            if (tag == NONE) return null;
+            if (tag == FUNCTION) return function();
+
+            int line = varint();
+            Stmt stmt = switch (tag) {
+                case BLOCK -> new Stmt.Block(statements());
+                case CLASS -> {
+                    Token name = token();
+                    int count = varint();
+                    List<Stmt.Function> methods = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        methods.add(function());
+                    }
+                    yield new Stmt.Class(name, methods);
+                }
+                case EXPRESSION -> new Stmt.Expression(expression());
+                case IF -> new Stmt.If(expression(), statement(), statement());
+                case PRINT -> new Stmt.Print(expression());
+                case RETURN -> {
+                    Stmt.Return result = new Stmt.Return(token(), expression());
+                    result.tailCall = in.get() != 0;
+                    yield result;
+                }
+                case VAR -> new Stmt.Var(token(), expression());
+                case WHILE -> new Stmt.While(expression(), statement());
+                default -> throw new IllegalArgumentException("Unknown statement tag " + tag + ".");
+            };
+            stmt.line = line;
+            return stmt;
+        }
+
+        private Expr expression() {
+            byte tag = in.get();
+            return switch (tag) {
+                case NONE -> null;
+                case ASSIGN -> {
+                    Expr.Assign expr = new Expr.Assign(token(), expression());
+                    expr.depth = varint() - 1;
+                    expr.slot = varint();
+                    yield expr;
+                }
+                case BINARY -> new Expr.Binary(expression(), token(), expression());
+                case CALL -> new Expr.Call(expression(), token(), expressions());
+                case GET -> new Expr.Get(expression(), token());
+                case GROUPING -> new Expr.Grouping(expression());
+                case LITERAL -> new Expr.Literal(literal());
+                case LOGICAL -> new Expr.Logical(expression(), token(), expression());
+                case SET -> new Expr.Set(expression(), token(), expression());
+                case THIS -> {
+                    Expr.This expr = new Expr.This(token());
+                    expr.depth = varint() - 1;
+                    expr.slot = varint();
+                    yield expr;
+                }
+                case UNARY -> new Expr.Unary(token(), expression());
+                case VARIABLE -> {
+                    Expr.Variable expr = new Expr.Variable(token());
+                    expr.depth = varint() - 1;
+                    expr.slot = varint();
+                    yield expr;
+                }
+                default -> throw new IllegalArgumentException("Unknown expression tag " + tag + ".");
+            };
+        }
+
+        private List<Expr> expressions() {
+            int count = varint();
+            List<Expr> expressions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                expressions.add(expression());
+            }
+            return expressions;
+        }
+
+        private Stmt.Function function() {
+            int line = varint();
+            boolean hasClosures = in.get() != 0;
+            Token name = token();
+            int count = varint();
+            List<Token> params = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                params.add(token());
+            }
+            Stmt.Function function = new Stmt.Function(name, params, statements());
+            function.line = line;
+            function.hasClosures = hasClosures;
+            return function;
+        }
+
+        private Object literal() {
+            byte tag = in.get();
+            return switch (tag) {
+                case NIL -> null;
+                case FALSE -> false;
+                case TRUE -> true;
+                case NUMBER -> in.getDouble();
+                case STRING -> string();
+                default -> throw new IllegalArgumentException("Unknown literal tag " + tag + ".");
+            };
+        }
+
+        private Token token() {
+            TokenType type = TYPES[in.get()];
+            String lexeme = string();
+            return new Token(type, lexeme, null, varint());
+        }
+
+        private int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) return value;
+            }
+        }
+
+        private String string() {
+            int index = varint();
+            if (index < strings.size()) return strings.get(index);
+            if (index != strings.size()) throw new IllegalArgumentException("Bad string index " + index + ".");
+
+            byte[] bytes = new byte[varint()];
+            in.get(bytes);
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(string);
+            return string;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package lox;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+class Chunk {
+    byte[] code = new byte[64];
+    int count = 0;
+    Object[] constants = new Object[16];
+    int constantCount = 0;
+
+    // Run-length encoded line table: lines[i] applies from lineStarts[i] up to the next start.
+    private int[] lineStarts = new int[16];
+    private int[] lines = new int[16];
+    private int lineCount = 0;
+
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+
+    void write(int b, int line) {
+        if (count == code.length) {
+            code = Arrays.copyOf(code, count * 2);
+        }
+        code[count] = (byte) b;
+
+        if (lineCount == 0 || lines[lineCount - 1] != line) {
+            if (lineCount == lines.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                lines = Arrays.copyOf(lines, lineCount * 2);
+            }
+            lineStarts[lineCount] = count;
+            lines[lineCount] = line;
+            lineCount++;
+        }
+
+        count++;
+    }
+
+    int addConstant(Object value) {
+        // Functions are compared by identity; names, numbers and strings are shared.
+        if (!(value instanceof VmFunction)) {
+            Integer existing = constantIndex.get(value);
+            if (existing != null) return existing;
+            constantIndex.put(value, constantCount);
+        }
+
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+        }
+        constants[constantCount] = value;
+        return constantCount++;
+    }
+
+    int getLine(int offset) {
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lineStarts[mid] <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return lines[low];
+    }
+}
@@ -0,0 +1,471 @@
+package lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lowers a resolved syntax tree into bytecode for the VM. Each function body gets its own Compiler, chained
+// through enclosing so that captured variables can be turned into upvalues.
+class Compiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private static final int MAX_LOCALS = 256;
+    private static final int MAX_UPVALUES = 256;
+
+    private enum FunctionType {
+        SCRIPT,
+        FUNCTION,
+        INITIALIZER,
+        METHOD,
+    }
+
+    private static class Local {
+        final String name;
+        final int depth;
+        boolean isCaptured = false;
+
+        Local(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+    }
+
+    private record Upvalue(int index, boolean isLocal) {}
+
+    private final Compiler enclosing;
+    private final Diagnostics diagnostics;
+    private final FunctionType type;
+    private final VmFunction function;
+    private final List<Local> locals = new ArrayList<>();
+    private final List<Upvalue> upvalues = new ArrayList<>();
+    private int scopeDepth = 0;
+
+    // Line recorded for the instructions being emitted; runtime errors report it.
+    private int line = 1;
+
+    private Compiler(Compiler enclosing, Diagnostics diagnostics, FunctionType type, String name) {
+        this.enclosing = enclosing;
+        this.diagnostics = diagnostics;
+        this.type = type;
+        this.function = new VmFunction(name);
+        if (enclosing != null) this.line = enclosing.line;
+
+        // Slot zero holds the receiver inside methods and the called closure everywhere else.
+        boolean hasReceiver = type == FunctionType.METHOD || type == FunctionType.INITIALIZER;
+        locals.add(new Local(hasReceiver ? "this" : "", 0));
+    }
+
+    static VmFunction compile(List<Stmt> statements, Diagnostics diagnostics) {
+        Compiler compiler = new Compiler(null, diagnostics, FunctionType.SCRIPT, null);
+        compiler.compileAll(statements);
+        return compiler.endFunction();
+    }
+
+    private void compileAll(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            statement.accept(this);
+        }
+    }
+
+    private void compile(Expr expr) {
+        expr.accept(this);
+    }
+
+    private VmFunction endFunction() {
+        emitReturn();
+        function.upvalueCount = upvalues.size();
+        return function;
+    }
+
+    private Chunk chunk() {
+        return function.chunk;
+    }
+
+    private void emit(int b) {
+        chunk().write(b, line);
+    }
+
+    private void emit(int op, int operand) {
+        emit(op);
+        emit(operand);
+    }
+
+    private void emitShort(int value) {
+        emit((value >> 8) & 0xff);
+        emit(value & 0xff);
+    }
+
+    private void emitReturn() {
+        if (type == FunctionType.INITIALIZER) {
+            emit(OpCode.GET_LOCAL, 0);
+        } else {
+            emit(OpCode.NIL);
+        }
+        emit(OpCode.RETURN);
+    }
+
+    private int makeConstant(Object value) {
+        int constant = chunk().addConstant(value);
+        if (constant > 0xffff) {
+            diagnostics.error(line, "Too many constants in one chunk.");
+            return 0;
+        }
+        return constant;
+    }
+
+    private void emitConstant(int op, Object value) {
+        emit(op);
+        emitShort(makeConstant(value));
+    }
+
+    private int emitJump(int op) {
+        emit(op);
+        emitShort(0xffff);
+        return chunk().count - 2;
+    }
+
+    private void patchJump(int offset) {
+        int jump = chunk().count - offset - 2;
+        if (jump > 0xffff) {
+            diagnostics.error(line, "Too much code to jump over.");
+        }
+
+        chunk().code[offset] = (byte) ((jump >> 8) & 0xff);
+        chunk().code[offset + 1] = (byte) (jump & 0xff);
+    }
+
+    private void emitLoop(int loopStart) {
+        emit(OpCode.LOOP);
+        int offset = chunk().count - loopStart + 2;
+        if (offset > 0xffff) diagnostics.error(line, "Loop body too large.");
+        emitShort(offset);
+    }
+
+    private void beginScope() {
+        scopeDepth++;
+    }
+
+    private void endScope() {
+        scopeDepth--;
+        while (!locals.isEmpty() && locals.get(locals.size() - 1).depth > scopeDepth) {
+            emit(locals.get(locals.size() - 1).isCaptured ? OpCode.CLOSE_UPVALUE : OpCode.POP);
+            locals.remove(locals.size() - 1);
+        }
+    }
+
+    private void addLocal(Token name) {
+        if (locals.size() == MAX_LOCALS) {
+            diagnostics.error(name, "Too many local variables in function.");
+            return;
+        }
+        locals.add(new Local(name.lexeme, scopeDepth));
+    }
+
+    // Binds the value on top of the stack to name, as a global at the top level or as a new local otherwise.
+    private void defineVariable(Token name) {
+        if (scopeDepth > 0) {
+            addLocal(name);
+            return;
+        }
+        line = name.line;
+        emitConstant(OpCode.DEFINE_GLOBAL, name.symbol);
+    }
+
+    private int resolveLocal(String name) {
+        for (int i = locals.size() - 1; i >= 0; i--) {
+            if (locals.get(i).name.equals(name)) return i;
+        }
+        return -1;
+    }
+
+    private int resolveUpvalue(String name) {
+        if (enclosing == null) return -1;
+
+        int local = enclosing.resolveLocal(name);
+        if (local != -1) {
+            enclosing.locals.get(local).isCaptured = true;
+            return addUpvalue(local, true);
+        }
+
+        int upvalue = enclosing.resolveUpvalue(name);
+        if (upvalue != -1) return addUpvalue(upvalue, false);
+
+        return -1;
+    }
+
+    private int addUpvalue(int index, boolean isLocal) {
+        for (int i = 0; i < upvalues.size(); i++) {
+            Upvalue upvalue = upvalues.get(i);
+            if (upvalue.index() == index && upvalue.isLocal() == isLocal) return i;
+        }
+
+        if (upvalues.size() == MAX_UPVALUES) {
+            diagnostics.error(line, "Too many closure variables in function.");
+            return 0;
+        }
+
+        upvalues.add(new Upvalue(index, isLocal));
+        return upvalues.size() - 1;
+    }
+
+    private void namedVariable(Token name, boolean assign) {
+        line = name.line;
+        int arg = resolveLocal(name.lexeme);
+        if (arg != -1) {
+            emit(assign ? OpCode.SET_LOCAL : OpCode.GET_LOCAL, arg);
+        } else if ((arg = resolveUpvalue(name.lexeme)) != -1) {
+            emit(assign ? OpCode.SET_UPVALUE : OpCode.GET_UPVALUE, arg);
+        } else {
+            emitConstant(assign ? OpCode.SET_GLOBAL : OpCode.GET_GLOBAL, name.symbol);
+        }
+    }
+
+    private void function(Stmt.Function stmt, FunctionType type) {
+        Compiler compiler = new Compiler(this, diagnostics, type, stmt.name.lexeme);
+        compiler.beginScope();
+        for (Token param : stmt.params) {
+            compiler.addLocal(param);
+        }
+        compiler.function.arity = stmt.params.size();
+        compiler.compileAll(stmt.body);
+        VmFunction compiled = compiler.endFunction();
+
+        line = stmt.name.line;
+        emitConstant(OpCode.CLOSURE, compiled);
+        for (Upvalue upvalue : compiler.upvalues) {
+            emit(upvalue.isLocal() ? 1 : 0);
+            emit(upvalue.index());
+        }
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        compile(expr.value);
+        namedVariable(expr.name, true);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        compile(expr.lhs);
+        compile(expr.rhs);
+
+        line = expr.operator.line;
+        switch (expr.operator.type) {
+            case MINUS -> emit(OpCode.SUBTRACT);
+            case SLASH -> emit(OpCode.DIVIDE);
+            case STAR -> emit(OpCode.MULTIPLY);
+            case PLUS -> emit(OpCode.ADD);
+            case GREATER -> emit(OpCode.GREATER);
+            case GREATER_EQUAL -> emit(OpCode.GREATER_EQUAL);
+            case LESS -> emit(OpCode.LESS);
+            case LESS_EQUAL -> emit(OpCode.LESS_EQUAL);
+            case BANG_EQUAL -> emit(OpCode.NOT_EQUAL);
+            case EQUAL_EQUAL -> emit(OpCode.EQUAL);
+            default -> {
+                emit(OpCode.POP);
+                emit(OpCode.POP);
+                emit(OpCode.NIL);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        compile(expr.callee);
+        for (Expr argument : expr.arguments) {
+            compile(argument);
+        }
+
+        line = expr.paren.line;
+        emit(OpCode.CALL, expr.arguments.size());
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        compile(expr.object);
+        line = expr.name.line;
+        emitConstant(OpCode.GET_PROPERTY, expr.name.symbol);
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        compile(expr.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        if (expr.value == null) {
+            emit(OpCode.NIL);
+        } else if (expr.value instanceof Boolean value) {
+            emit(value ? OpCode.TRUE : OpCode.FALSE);
+        } else {
+            emitConstant(OpCode.CONSTANT, expr.value);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        compile(expr.lhs);
+
+        if (expr.operator.type == TokenType.OR) {
+            int elseJump = emitJump(OpCode.JUMP_IF_FALSE);
+            int endJump = emitJump(OpCode.JUMP);
+            patchJump(elseJump);
+            emit(OpCode.POP);
+            compile(expr.rhs);
+            patchJump(endJump);
+        } else {
+            int endJump = emitJump(OpCode.JUMP_IF_FALSE);
+            emit(OpCode.POP);
+            compile(expr.rhs);
+            patchJump(endJump);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        compile(expr.object);
+        compile(expr.value);
+        line = expr.name.line;
+        emitConstant(OpCode.SET_PROPERTY, expr.name.symbol);
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        namedVariable(expr.keyword, false);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        compile(expr.rhs);
+
+        line = expr.operator.line;
+        switch (expr.operator.type) {
+            case MINUS -> emit(OpCode.NEGATE);
+            case BANG -> emit(OpCode.NOT);
+            default -> {
+                emit(OpCode.POP);
+                emit(OpCode.NIL);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        namedVariable(expr.name, false);
+        return null;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        beginScope();
+        compileAll(stmt.statements);
+        endScope();
+        return null;
+    }
+
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        line = stmt.name.line;
+        emitConstant(OpCode.CLASS, stmt.name.lexeme);
+        defineVariable(stmt.name);
+
+        // Put the class back on the stack so each METHOD instruction can find it.
+        namedVariable(stmt.name, false);
+        for (Stmt.Function method : stmt.methods) {
+            FunctionType type = method.name.symbol == Symbol.INIT ? FunctionType.INITIALIZER : FunctionType.METHOD;
+            function(method, type);
+            emitConstant(OpCode.METHOD, method.name.symbol);
+        }
+        emit(OpCode.POP);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        compile(stmt.expression);
+        emit(OpCode.POP);
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        // A local function is in scope inside its own body so that it can recurse.
+        if (scopeDepth > 0) {
+            addLocal(stmt.name);
+            function(stmt, FunctionType.FUNCTION);
+        } else {
+            function(stmt, FunctionType.FUNCTION);
+            defineVariable(stmt.name);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        compile(stmt.condition);
+
+        int thenJump = emitJump(OpCode.JUMP_IF_FALSE);
+        emit(OpCode.POP);
+        stmt.thenBranch.accept(this);
+
+        int elseJump = emitJump(OpCode.JUMP);
+        patchJump(thenJump);
+        emit(OpCode.POP);
+        if (stmt.elseBranch != null) stmt.elseBranch.accept(this);
+        patchJump(elseJump);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        compile(stmt.expression);
+        emit(OpCode.PRINT);
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        line = stmt.keyword.line;
+        if (stmt.value == null) {
+            emitReturn();
+        } else {
+            compile(stmt.value);
+            emit(OpCode.RETURN);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer != null) {
+            compile(stmt.initializer);
+        } else {
+            emit(OpCode.NIL);
+        }
+        defineVariable(stmt.name);
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        int loopStart = chunk().count;
+        compile(stmt.condition);
+
+        int exitJump = emitJump(OpCode.JUMP_IF_FALSE);
+        emit(OpCode.POP);
+        stmt.body.accept(this);
+        emitLoop(loopStart);
+
+        patchJump(exitJump);
+        emit(OpCode.POP);
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package lox;
+
+// How a statement finished executing. Anything other than NORMAL makes the enclosing statements stop and pass
+// it outwards until something handles it, the way a RETURN unwinds to the function call that ran the body.
+enum Completion {
+    NORMAL,
+    RETURN
+}
@@ -0,0 +1,78 @@
+package lox;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Collects the compile and runtime errors of one Lox isolate. Each message is formatted the way the command line
+// prints it and, when an error stream is given, is also written there as soon as it is reported. Tasks spawned by
+// a script report to the same Diagnostics from their own threads. Lox resets it at the start of each run, so
+// the flags and messages describe the latest run only.
+public class Diagnostics {
+    private final PrintStream err;
+    private final List<String> messages = new ArrayList<>();
+    private int errors = 0;
+    private volatile boolean hadError = false;
+    private volatile boolean hadRuntimeError = false;
+
+    public Diagnostics() {
+        this(null);
+    }
+
+    public Diagnostics(PrintStream err) {
+        this.err = err;
+    }
+
+    public boolean hadError() {
+        return hadError;
+    }
+
+    public boolean hadRuntimeError() {
+        return hadRuntimeError;
+    }
+
+    public synchronized List<String> messages() {
+        return List.copyOf(messages);
+    }
+
+    // Forgets everything reported so far.
+    public synchronized void reset() {
+        messages.clear();
+        errors = 0;
+        hadError = false;
+        hadRuntimeError = false;
+    }
+
+    // The number of compile errors reported since the last reset, so a compile can tell whether it added any.
+    synchronized int errors() {
+        return errors;
+    }
+
+    void error(int line, String message) {
+        report(line, "", message);
+    }
+
+    void error(Token token, String message) {
+        if (token.type == TokenType.EOF) {
+            report(token.line, " at end", message);
+        } else {
+            report(token.line, " at '" + token.lexeme + "'", message);
+        }
+    }
+
+    synchronized void runtimeError(RuntimeError error) {
+        add(error.getMessage() + "\n[line " + error.line + "]");
+        hadRuntimeError = true;
+    }
+
+    private synchronized void report(int line, String where, String message) {
+        add("[line " + line + "] Error" + where + ": " + message);
+        errors++;
+        hadError = true;
+    }
+
+    private void add(String message) {
+        messages.add(message);
+        if (err != null) err.println(message);
+    }
+}
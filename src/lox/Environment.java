@@ -0,0 +1,77 @@
+package lox;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Environment {
+    private final Environment parent;
+
+    // Only the global scope is keyed by name. Every other scope keeps its locals in the slots the Resolver
+    // assigned them, which are simply their declaration order within the scope. Globals are shared by every task
+    // an interpreter spawns, so they live in a concurrent map, which can't hold nil directly.
+    private final Map<Symbol, Object> values;
+    private static final Object NIL = new Object();
+    private Object[] slots;
+    private int size = 0;
+
+    Environment() {
+        this.parent = null;
+        this.values = new ConcurrentHashMap<>();
+    }
+
+    Environment(Environment parent) {
+        this.parent = parent;
+        this.values = null;
+        this.slots = new Object[8];
+    }
+
+    void define(Symbol name, Object value) {
+        values.put(name, value == null ? NIL : value);
+    }
+
+    void define(Object value) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        slots[size++] = value;
+    }
+
+    // Empties the frame so a call can reuse it.
+    void clear() {
+        Arrays.fill(slots, 0, size, null);
+        size = 0;
+    }
+
+    Object getAt(int distance, int slot) {
+        return ancestor(distance).slots[slot];
+    }
+
+    void assignAt(int distance, int slot, Object value) {
+        ancestor(distance).slots[slot] = value;
+    }
+
+    Environment ancestor(int distance) {
+        Environment environment = this;
+        for (int i = 0; i < distance; i++) {
+            environment = environment.parent;
+        }
+
+        return environment;
+    }
+
+    void assign(Token name, Object value) {
+        if (values.replace(name.symbol, value == null ? NIL : value) != null) return;
+
+        throw new RuntimeError(name, "Undefined variable '" + name.lexeme + "'.");
+    }
+
+    Object get(Token name) {
+        Object value = values.get(name.symbol);
+        if (value != null) {
+            return value == NIL ? null : value;
+        }
+
+        throw new RuntimeError(name,"Undefined variable '" + name.lexeme + "'.");
+    }
+}
@@ -1,3 +1,5 @@
+package lox;
+
 import java.util.List;
 
 abstract class Expr {
@@ -27,6 +29,8 @@ abstract class Expr {
 
     final Token name;
     final Expr value;
+    int depth = -1;
+    int slot = 0;
   }
   static class Binary extends Expr {
     Binary(Expr lhs, Token operator, Expr rhs) {
@@ -43,6 +47,7 @@ abstract class Expr {
     final Expr lhs;
     final Token operator;
     final Expr rhs;
+    Specialization specialization = Specialization.UNINITIALIZED;
   }
   static class Call extends Expr {
     Call(Expr callee, Token paren, List<Expr> arguments) {
@@ -73,6 +78,7 @@ abstract class Expr {
 
     final Expr object;
     final Token name;
+    PropertyCache cache = null;
   }
   static class Grouping extends Expr {
     Grouping(Expr expression) {
@@ -129,6 +135,7 @@ abstract class Expr {
     final Expr object;
     final Token name;
     final Expr value;
+    PropertyCache cache = null;
   }
   static class This extends Expr {
     This(Token keyword) {
@@ -141,6 +148,8 @@ abstract class Expr {
     }
 
     final Token keyword;
+    int depth = -1;
+    int slot = 0;
   }
   static class Unary extends Expr {
     Unary(Token operator, Expr rhs) {
@@ -167,6 +176,8 @@ abstract class Expr {
     }
 
     final Token name;
+    int depth = -1;
+    int slot = 0;
   }
 
   abstract <R> R accept(Visitor<R> visitor);
@@ -0,0 +1,768 @@
+package lox;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Completion> {
+    final Environment globals;
+    private final Diagnostics diagnostics;
+    private final PrintStream out;
+
+    private Environment environment;
+
+    // Set when profiling; every Lox function call is then reported to it.
+    Profiler profiler = null;
+
+    // Set when collecting execution counters.
+    Metrics metrics = null;
+
+    // Lox calls deeper than this fail with a "Stack overflow." runtime error, as they do on the VM.
+    static final int DEFAULT_MAX_DEPTH = 10_000;
+    int maxDepth = DEFAULT_MAX_DEPTH;
+    private int depth = 0;
+
+    // Value of the return statement currently unwinding with Completion.RETURN.
+    private Object returnValue = null;
+
+    // A call in tail position, left for the returning function's LoxFunction to make once its body has finished.
+    // Its arguments are at the top of tailStack from tailArguments up. The stack is reused from call to call, and
+    // calls made while arguments are evaluated put theirs above, so a tail call allocates no argument list.
+    LoxFunction tailFunction = null;
+    LoxInstance tailReceiver = null;
+    private int tailArguments = 0;
+    private Object[] tailStack = new Object[16];
+    private int tailTop = 0;
+
+    // Out-of-band result of evaluateNumber() for operands that were not numbers.
+    private boolean unexpected = false;
+    private Object unexpectedValue = null;
+
+    private static final int SMALL_INTEGER_BIAS = 128;
+    private static final Double[] SMALL_INTEGERS = new Double[SMALL_INTEGER_BIAS + 1024];
+
+    static {
+        for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+            SMALL_INTEGERS[i] = (double) (i - SMALL_INTEGER_BIAS);
+        }
+    }
+
+    static final LoxCallable CLOCK = new NativeFunction(0) {
+        @Override
+        public Object call0(Interpreter interpreter) {
+            return (double)System.currentTimeMillis() / 1000.0;
+        }
+    };
+
+    Interpreter(Diagnostics diagnostics, PrintStream out) {
+        this.globals = new Environment();
+        this.environment = globals;
+        this.diagnostics = diagnostics;
+        this.out = out;
+        globals.define(Symbol.intern("clock"), CLOCK);
+        Tasks.define(globals);
+    }
+
+    // For a task spawned by the given interpreter: it shares the globals, output and diagnostics but has its own
+    // call stack. Profiling only follows the main script.
+    Interpreter(Interpreter parent) {
+        this.globals = parent.globals;
+        this.environment = globals;
+        this.diagnostics = parent.diagnostics;
+        this.out = parent.out;
+        this.metrics = parent.metrics;
+        this.maxDepth = parent.maxDepth;
+    }
+
+    void interpret(List<Stmt> statements) {
+        try {
+            for (Stmt statement : statements) {
+                execute(statement);
+            }
+        } catch (RuntimeError error) {
+            diagnostics.runtimeError(error);
+        }
+    }
+
+    // Runs a spawned task.
+    void interpret(LoxCallable function) {
+        try {
+            function.call0(this);
+        } catch (RuntimeError error) {
+            diagnostics.runtimeError(error);
+        }
+    }
+
+    private Object lookUpVariable(Token name, int depth, int slot) {
+        if (depth != -1) {
+            return environment.getAt(depth, slot);
+        } else {
+            return globals.get(name);
+        }
+    }
+
+    @Override
+    public Object visitAssignExpr(Expr.Assign expr) {
+        Object value = evaluate(expr.value);
+        if (expr.depth != -1) {
+            environment.assignAt(expr.depth, expr.slot, value);
+        } else {
+            globals.assign(expr.name, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object visitBinaryExpr(Expr.Binary expression) {
+        return switch(expression.operator.type) {
+            case MINUS, SLASH, STAR -> {
+                double value = evaluateNumber(expression);
+                yield unexpected ? unexpectedValue : box(value);
+            }
+            case PLUS -> add(expression);
+            case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+                double lhs = evaluateNumber(expression.lhs);
+                boolean lhsIsNumber = !unexpected;
+                double rhs = evaluateNumber(expression.rhs);
+                if (!lhsIsNumber || unexpected) throw numberError(expression.operator);
+
+                yield switch (expression.operator.type) {
+                    case GREATER -> lhs > rhs;
+                    case GREATER_EQUAL -> lhs >= rhs;
+                    case LESS -> lhs < rhs;
+                    default -> lhs <= rhs;
+                };
+            }
+            case BANG_EQUAL -> !equal(expression);
+            case EQUAL_EQUAL -> equal(expression);
+            default -> {
+                evaluate(expression.lhs);
+                evaluate(expression.rhs);
+                yield null;
+            }
+        };
+    }
+
+    private Object add(Expr.Binary expr) {
+        switch (expr.specialization) {
+            case DOUBLE -> {
+                double value = evaluateNumber(expr);
+                return unexpected ? unexpectedValue : box(value);
+            }
+            case STRING -> {
+                Object lhs = evaluate(expr.lhs);
+                Object rhs = evaluate(expr.rhs);
+                if (LoxString.isString(lhs) && LoxString.isString(rhs)) return LoxString.concat(lhs, rhs);
+
+                expr.specialization = Specialization.GENERIC;
+                return add(lhs, rhs);
+            }
+            default -> {
+                Object lhs = evaluate(expr.lhs);
+                Object rhs = evaluate(expr.rhs);
+                if (expr.specialization == Specialization.UNINITIALIZED) specialize(expr, lhs, rhs);
+                return add(lhs, rhs);
+            }
+        }
+    }
+
+    private static Object add(Object lhs, Object rhs) {
+        if (lhs instanceof Double left && rhs instanceof Double right) return box(left + right);
+        if (LoxString.isString(lhs) && LoxString.isString(rhs)) return LoxString.concat(lhs, rhs);
+        return null;
+    }
+
+    private boolean equal(Expr.Binary expr) {
+        if (expr.specialization == Specialization.DOUBLE) {
+            double lhs = evaluateNumber(expr.lhs);
+            if (unexpected) {
+                Object left = unexpectedValue;
+                Object right = evaluate(expr.rhs);
+                expr.specialization = Specialization.GENERIC;
+                return isEqual(left, right);
+            }
+
+            double rhs = evaluateNumber(expr.rhs);
+            if (unexpected) {
+                // A number never equals a value of another type.
+                expr.specialization = Specialization.GENERIC;
+                return false;
+            }
+
+            // Same as Double.equals(): NaN equals itself and 0 differs from -0.
+            return Double.doubleToLongBits(lhs) == Double.doubleToLongBits(rhs);
+        }
+
+        Object lhs = evaluate(expr.lhs);
+        Object rhs = evaluate(expr.rhs);
+        if (expr.specialization == Specialization.UNINITIALIZED) specialize(expr, lhs, rhs);
+        return isEqual(lhs, rhs);
+    }
+
+    private static void specialize(Expr.Binary expr, Object lhs, Object rhs) {
+        if (lhs instanceof Double && rhs instanceof Double) {
+            expr.specialization = Specialization.DOUBLE;
+        } else if (LoxString.isString(lhs) && LoxString.isString(rhs) && expr.operator.type == TokenType.PLUS) {
+            expr.specialization = Specialization.STRING;
+        } else {
+            expr.specialization = Specialization.GENERIC;
+        }
+    }
+
+    @Override
+    public Object visitCallExpr(Expr.Call expr) {
+        if (expr.callee instanceof Expr.Get get) return invoke(expr, get);
+        return call(expr, evaluate(expr.callee));
+    }
+
+    // Calls obj.name(...) straight off the receiver, so a method call never materializes a bound method.
+    private Object invoke(Expr.Call expr, Expr.Get get) {
+        LoxInstance instance = evaluateReceiver(get);
+        PropertyCache property = findProperty(get, instance);
+        if (property.method == -1) return call(expr, instance.getField(property.slot));
+
+        LoxFunction method = instance.klass.method(property.method);
+        Environment frame = method.frame(this);
+        frame.define(instance);
+        for (Expr argument : expr.arguments) frame.define(evaluate(argument));
+        checkArity(expr, method, expr.arguments.size());
+        return call(expr, method, frame);
+    }
+
+    // No argument list is built for most calls: arguments go straight into a Lox function's new frame, and to
+    // other callables through the fixed-arity entry points when there are at most three of them.
+    private Object call(Expr.Call expr, Object callee) {
+        if (!(callee instanceof LoxCallable function)) {
+            throw new RuntimeError(expr.paren, "Can only call functions and classes.");
+        }
+
+        List<Expr> arguments = expr.arguments;
+        int count = arguments.size();
+        if (function instanceof LoxFunction lox) {
+            Environment frame = lox.frame(this);
+            for (Expr argument : arguments) frame.define(evaluate(argument));
+            checkArity(expr, lox, count);
+            return call(expr, lox, frame);
+        }
+
+        Object a = null;
+        Object b = null;
+        Object c = null;
+        List<Object> values = null;
+        if (count > 3) {
+            values = evaluateArguments(arguments);
+        } else {
+            if (count > 0) a = evaluate(arguments.get(0));
+            if (count > 1) b = evaluate(arguments.get(1));
+            if (count > 2) c = evaluate(arguments.get(2));
+        }
+        checkArity(expr, function, count);
+
+        if (metrics != null && isNative(function)) metrics.nativeCall();
+        enter(expr);
+        try {
+            return switch (count) {
+                case 0 -> function.call0(this);
+                case 1 -> function.call1(this, a);
+                case 2 -> function.call2(this, a, b);
+                case 3 -> function.call3(this, a, b, c);
+                default -> function.call(this, values);
+            };
+        } catch (NativeError error) {
+            throw new RuntimeError(expr.paren, error.getMessage());
+        } catch (StackOverflowError error) {
+            throw stackOverflow(expr);
+        } finally {
+            depth--;
+        }
+    }
+
+    // Calls a Lox function whose frame already holds its receiver, if any, and arguments.
+    private Object call(Expr.Call expr, LoxFunction function, Environment frame) {
+        enter(expr);
+        try {
+            return function.call(this, frame);
+        } catch (StackOverflowError error) {
+            throw stackOverflow(expr);
+        } finally {
+            depth--;
+        }
+    }
+
+    private List<Object> evaluateArguments(List<Expr> arguments) {
+        Object[] values = new Object[arguments.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = evaluate(arguments.get(i));
+        }
+        return Arrays.asList(values);
+    }
+
+    private void enter(Expr.Call expr) {
+        if (depth == maxDepth) throw stackOverflow(expr);
+        depth++;
+    }
+
+    // The Java stack can also run out before maxDepth is reached, since each Lox call takes several Java frames;
+    // the call that hits the limit reports it the same way.
+    private static RuntimeError stackOverflow(Expr.Call expr) {
+        return new RuntimeError(expr.paren, "Stack overflow.");
+    }
+
+    private static boolean isNative(LoxCallable function) {
+        return !(function instanceof LoxFunction || function instanceof LoxBoundMethod || function instanceof LoxClass);
+    }
+
+    private void checkArity(Expr.Call expr, LoxCallable function, int count) {
+        if (count != function.arity()) {
+            throw new RuntimeError(expr.paren, "Expected " +
+                    function.arity() + " arguments but got " +
+                    count + ".");
+        }
+    }
+
+    @Override
+    public Object visitGetExpr(Expr.Get expr) {
+        LoxInstance instance = evaluateReceiver(expr);
+        PropertyCache property = findProperty(expr, instance);
+        if (property.method == -1) return instance.getField(property.slot);
+        return instance.klass.method(property.method).bind(instance);
+    }
+
+    private LoxInstance evaluateReceiver(Expr.Get expr) {
+        Object object = evaluate(expr.object);
+        if (!(object instanceof LoxInstance instance)) {
+            throw new RuntimeError(expr.name, "Only instances have properties.");
+        }
+        return instance;
+    }
+
+    // Finds where the property lives for this receiver's shape through the site's inline cache, which covers up
+    // to PropertyCache.MAX_ENTRIES shapes before the site turns megamorphic. Fields shadow methods.
+    private PropertyCache findProperty(Expr.Get expr, LoxInstance instance) {
+        Shape shape = instance.shape;
+        PropertyCache cache = expr.cache;
+        for (PropertyCache entry = cache; entry != null; entry = entry.next) {
+            if (entry.shape == shape) return entry;
+        }
+
+        boolean cacheable = cache != PropertyCache.MEGAMORPHIC;
+        PropertyCache next = cacheable ? cache : null;
+        PropertyCache entry;
+        int slot = shape.slotOf(expr.name.symbol);
+        if (slot != -1) {
+            entry = new PropertyCache(shape, slot, null, -1, next);
+        } else {
+            int method = instance.klass.methodIndex(expr.name.symbol);
+            if (method == -1) {
+                throw new RuntimeError(expr.name, "Undefined property '" + expr.name.lexeme + "'.");
+            }
+            entry = new PropertyCache(shape, -1, null, method, next);
+        }
+
+        if (cacheable) expr.cache = entry.entries > PropertyCache.MAX_ENTRIES ? PropertyCache.MEGAMORPHIC : entry;
+        return entry;
+    }
+
+    // Finds the slot to store the field into for this receiver's shape, and the shape to move to if the field
+    // is new, through the site's inline cache.
+    private PropertyCache findStore(Expr.Set expr, LoxInstance instance) {
+        Shape shape = instance.shape;
+        PropertyCache cache = expr.cache;
+        for (PropertyCache entry = cache; entry != null; entry = entry.next) {
+            if (entry.shape == shape) return entry;
+        }
+
+        boolean cacheable = cache != PropertyCache.MEGAMORPHIC;
+        PropertyCache next = cacheable ? cache : null;
+        PropertyCache entry;
+        int slot = shape.slotOf(expr.name.symbol);
+        if (slot != -1) {
+            entry = new PropertyCache(shape, slot, null, -1, next);
+        } else {
+            entry = new PropertyCache(shape, shape.size, shape.withField(expr.name.symbol), -1, next);
+        }
+
+        if (cacheable) expr.cache = entry.entries > PropertyCache.MAX_ENTRIES ? PropertyCache.MEGAMORPHIC : entry;
+        return entry;
+    }
+
+    @Override
+    public Object visitGroupingExpr(Expr.Grouping expr) {
+        return evaluate(expr.expression);
+    }
+
+    @Override
+    public Object visitLiteralExpr(Expr.Literal expr) {
+        return expr.value;
+    }
+
+    @Override
+    public Object visitLogicalExpr(Expr.Logical expr) {
+        Object left = evaluate(expr.lhs);
+
+        if (expr.operator.type == TokenType.OR) {
+            if (isTruthy(left)) return left;
+        } else {
+            if (!isTruthy(left)) return left;
+        }
+
+        return evaluate(expr.rhs);
+    }
+
+    @Override
+    public Object visitSetExpr(Expr.Set expr) {
+        Object object = evaluate(expr.object);
+
+        if (!(object instanceof LoxInstance instance)) {
+            throw new RuntimeError(expr.name, "Only instances have fields.");
+        }
+
+        Object value = evaluate(expr.value);
+        // Evaluating the value may itself have added fields, so only look at the shape now. Tasks can store
+        // into the same instance at once, so the lookup, any growth and the store happen under its lock.
+        synchronized (instance) {
+            PropertyCache store = findStore(expr, instance);
+            if (store.transition != null) instance.transition(store.transition);
+            instance.setField(store.slot, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object visitThisExpr(Expr.This expr) {
+        return lookUpVariable(expr.keyword, expr.depth, expr.slot);
+    }
+
+    @Override
+    public Object visitUnaryExpr(Expr.Unary expr) {
+        return switch (expr.operator.type) {
+            case MINUS -> box(evaluateNumber(expr));
+            case BANG -> !isTruthy(evaluate(expr.rhs));
+            default -> {
+                evaluate(expr.rhs);
+                yield null;
+            }
+        };
+    }
+
+    @Override
+    public Object visitVariableExpr(Expr.Variable expr) {
+        return lookUpVariable(expr.name, expr.depth, expr.slot);
+    }
+
+    @Override
+    public Completion visitBlockStmt(Stmt.Block stmt) {
+        if (metrics != null) metrics.environmentAllocated();
+        return executeBlock(stmt.statements, new Environment(environment));
+    }
+
+    @Override
+    public Completion visitClassStmt(Stmt.Class stmt) {
+        LoxFunction[] methods = new LoxFunction[stmt.methods.size()];
+        for (int i = 0; i < methods.length; i++) {
+            Stmt.Function method = stmt.methods.get(i);
+            methods[i] = new LoxFunction(method, environment, method.name.symbol == Symbol.INIT);
+        }
+
+        LoxClass klass = new LoxClass(stmt, methods);
+        define(stmt.name, klass);
+
+        return Completion.NORMAL;
+    }
+
+    @Override
+    public Completion visitExpressionStmt(Stmt.Expression stmt) {
+        evaluate(stmt.expression);
+        return Completion.NORMAL;
+    }
+
+    @Override
+    public Completion visitFunctionStmt(Stmt.Function stmt) {
+        LoxFunction function = new LoxFunction(stmt, environment, false);
+        define(stmt.name, function);
+        return Completion.NORMAL;
+    }
+
+    @Override
+    public Completion visitIfStmt(Stmt.If stmt) {
+        if (isTruthy(evaluate(stmt.condition))) {
+            return execute(stmt.thenBranch);
+        } else if (stmt.elseBranch != null) {
+            return execute(stmt.elseBranch);
+        }
+        return Completion.NORMAL;
+    }
+
+    @Override
+    public Completion visitPrintStmt(Stmt.Print stmt) {
+        out.println(stringify(evaluate(stmt.expression)));
+        return Completion.NORMAL;
+    }
+
+    @Override
+    public Completion visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.tailCall) return tailCall((Expr.Call) stmt.value);
+
+        Object value = null;
+        if (stmt.value != null) value = evaluate(stmt.value);
+
+        returnValue = value;
+        return Completion.RETURN;
+    }
+
+    // Evaluates the callee and arguments of a call in tail position. A call to a Lox function or method is then
+    // handed back to the returning function to make in place of its own frame; anything else is called here.
+    private Completion tailCall(Expr.Call expr) {
+        Object callee;
+        LoxInstance receiver = null;
+        if (expr.callee instanceof Expr.Get get) {
+            LoxInstance instance = evaluateReceiver(get);
+            PropertyCache property = findProperty(get, instance);
+            if (property.method != -1) {
+                callee = instance.klass.method(property.method);
+                receiver = instance;
+            } else {
+                callee = instance.getField(property.slot);
+            }
+        } else {
+            callee = evaluate(expr.callee);
+        }
+
+        LoxFunction function;
+        if (callee instanceof LoxBoundMethod bound) {
+            function = bound.method;
+            receiver = bound.receiver;
+        } else if (callee instanceof LoxFunction direct) {
+            function = direct;
+        } else {
+            returnValue = call(expr, callee);
+            return Completion.RETURN;
+        }
+
+        int base = evaluateTailArguments(expr.arguments);
+        if (function.arity() != expr.arguments.size()) {
+            releaseTailArguments(base);
+            checkArity(expr, function, expr.arguments.size());
+        }
+        tailArguments = base;
+
+        // An initializer called directly returns its instance, which the trampoline does not produce.
+        if (function.isInitializer() && receiver != null) {
+            enter(expr);
+            try {
+                Environment environment = function.frame(this);
+                environment.define(receiver);
+                takeTailArguments(environment);
+                returnValue = function.call(this, environment);
+            } catch (StackOverflowError error) {
+                throw stackOverflow(expr);
+            } finally {
+                depth--;
+            }
+            return Completion.RETURN;
+        }
+
+        tailFunction = function;
+        tailReceiver = receiver;
+        returnValue = null;
+        return Completion.RETURN;
+    }
+
+    // Evaluates the arguments onto the top of tailStack and returns where they start. The slots are taken before
+    // any argument is evaluated, so a tail call made while evaluating one goes above them.
+    private int evaluateTailArguments(List<Expr> arguments) {
+        int base = tailTop;
+        int count = arguments.size();
+        if (base + count > tailStack.length) {
+            tailStack = Arrays.copyOf(tailStack, Math.max(tailStack.length * 2, base + count));
+        }
+        tailTop = base + count;
+        try {
+            for (int i = 0; i < count; i++) {
+                tailStack[base + i] = evaluate(arguments.get(i));
+            }
+        } catch (Throwable error) {
+            releaseTailArguments(base);
+            throw error;
+        }
+        return base;
+    }
+
+    // Defines the pending tail call's arguments in its frame and pops them.
+    void takeTailArguments(Environment environment) {
+        for (int i = tailArguments; i < tailTop; i++) {
+            environment.define(tailStack[i]);
+        }
+        releaseTailArguments(tailArguments);
+    }
+
+    private void releaseTailArguments(int base) {
+        Arrays.fill(tailStack, base, tailTop, null);
+        tailTop = base;
+    }
+
+    @Override
+    public Completion visitVarStmt(Stmt.Var stmt) {
+        define(stmt.name, stmt.initializer != null ? evaluate(stmt.initializer) : null);
+        return Completion.NORMAL;
+    }
+
+    @Override
+    public Completion visitWhileStmt(Stmt.While stmt) {
+        while (isTruthy(evaluate(stmt.condition))) {
+            Completion completion = execute(stmt.body);
+            if (completion != Completion.NORMAL) return completion;
+        }
+        return Completion.NORMAL;
+    }
+
+    private Object evaluate(Expr expr) {
+        return expr.accept(this);
+    }
+
+    // Evaluates an operand that is expected to be a number without boxing it. Nested arithmetic stays on
+    // primitive doubles all the way down; only leaves such as variables and calls produce an Object. When the
+    // value turns out not to be a number, unexpected is set and the value is left in unexpectedValue so the
+    // caller can report the error after evaluating its other operand, exactly as the boxed path did.
+    private double evaluateNumber(Expr expr) {
+        if (expr instanceof Expr.Binary binary) {
+            switch (binary.operator.type) {
+                case MINUS, SLASH, STAR -> {
+                    return evaluateArithmetic(binary);
+                }
+                case PLUS -> {
+                    // Only a '+' that has so far seen nothing but numbers is worth evaluating unboxed.
+                    if (binary.specialization == Specialization.DOUBLE) return evaluateArithmetic(binary);
+                }
+            }
+        } else if (expr instanceof Expr.Unary unary && unary.operator.type == TokenType.MINUS) {
+            double value = evaluateNumber(unary.rhs);
+            if (unexpected) throw numberError(unary.operator);
+            return -value;
+        } else if (expr instanceof Expr.Grouping grouping) {
+            return evaluateNumber(grouping.expression);
+        }
+
+        Object value = evaluate(expr);
+        if (value instanceof Double number) {
+            unexpected = false;
+            return number;
+        }
+        unexpected = true;
+        unexpectedValue = value;
+        return 0;
+    }
+
+    private double evaluateArithmetic(Expr.Binary expr) {
+        TokenType type = expr.operator.type;
+
+        double lhs = evaluateNumber(expr.lhs);
+        if (unexpected) {
+            Object left = unexpectedValue;
+            Object right = evaluate(expr.rhs);
+            if (type != TokenType.PLUS) throw numberError(expr.operator);
+
+            expr.specialization = Specialization.GENERIC;
+            unexpected = true;
+            boolean strings = LoxString.isString(left) && LoxString.isString(right);
+            unexpectedValue = strings ? LoxString.concat(left, right) : null;
+            return 0;
+        }
+
+        double rhs = evaluateNumber(expr.rhs);
+        if (unexpected) {
+            if (type != TokenType.PLUS) throw numberError(expr.operator);
+
+            // A number plus anything but a number is nil.
+            expr.specialization = Specialization.GENERIC;
+            unexpectedValue = null;
+            return 0;
+        }
+
+        return switch (type) {
+            case MINUS -> lhs - rhs;
+            case SLASH -> lhs / rhs;
+            case STAR -> lhs * rhs;
+            default -> lhs + rhs;
+        };
+    }
+
+    private Completion execute(Stmt stmt) {
+        if (metrics != null) metrics.statement(stmt.line);
+        return stmt.accept(this);
+    }
+
+    // Hands the value of the return statement that just completed to the function call that ran it.
+    Object takeReturnValue() {
+        Object value = returnValue;
+        returnValue = null;
+        return value;
+    }
+
+    private void define(Token name, Object value) {
+        if (environment == globals) {
+            globals.define(name.symbol, value);
+        } else {
+            environment.define(value);
+        }
+    }
+
+    protected Completion executeBlock(List<Stmt> statements, Environment environment) {
+        Environment previous = this.environment;
+        try {
+            this.environment = environment;
+            for (Stmt statement : statements) {
+                Completion completion = execute(statement);
+                if (completion != Completion.NORMAL) return completion;
+            }
+            return Completion.NORMAL;
+        } finally {
+            this.environment = previous;
+        }
+    }
+
+    static boolean isTruthy(Object object) {
+        if (object == null) return false;
+        if (object instanceof Boolean) return (boolean)object;
+        return true;
+    }
+
+    static boolean isEqual(Object a, Object b) {
+        if (a == null && b == null) return true;
+        if (a == null) return false;
+        // The same text may be a String or a LoxString.
+        if (a instanceof LoxString) a = a.toString();
+        if (b instanceof LoxString) b = b.toString();
+        return a.equals(b);
+    }
+
+    private RuntimeError numberError(Token operator) {
+        return new RuntimeError(operator, "Operand must be a number.");
+    }
+
+    // Boxes a number, reusing a canonical Double for small integers so counters and indexes don't allocate.
+    static Object box(double value) {
+        int integer = (int) value;
+        if (integer == value && integer >= -SMALL_INTEGER_BIAS && integer < SMALL_INTEGERS.length - SMALL_INTEGER_BIAS
+                && (integer != 0 || Double.doubleToRawLongBits(value) == 0)) {
+            return SMALL_INTEGERS[integer + SMALL_INTEGER_BIAS];
+        }
+        return value;
+    }
+
+    static String stringify(Object object) {
+        if (object == null) return "nil";
+
+        if (object instanceof Double) {
+            String text = object.toString();
+            if (text.endsWith(".0")) {
+                text = text.substring(0, text.length() - 2);
+            }
+            return text;
+        }
+
+        return object.toString();
+    }
+
+
+}
@@ -0,0 +1,244 @@
+package lox;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+public class Lexer {
+    private static final int WINDOW_SIZE = 8192;
+
+    private final String source;
+    private final Reader reader;
+    private final Diagnostics diagnostics;
+    private boolean drained = false;
+
+    // The part of the source read so far that is still needed: window[0] is the character at offset windowStart.
+    // Everything before the start of the current token is discarded when more is read.
+    private char[] window;
+    private int windowStart = 0;
+    private int windowCount = 0;
+
+    private int start = 0;
+    private int current = 0;
+    private int line = 1;
+
+    Lexer(String source, Diagnostics diagnostics) {
+        this.source = source;
+        this.reader = new StringReader(source);
+        this.diagnostics = diagnostics;
+        this.window = new char[Math.min(WINDOW_SIZE, source.length() + 1)];
+    }
+
+    // Reads the source as it is lexed, so only the current token and a window around it are held in memory.
+    Lexer(Reader reader, Diagnostics diagnostics) {
+        this.source = null;
+        this.reader = reader;
+        this.diagnostics = diagnostics;
+        this.window = new char[WINDOW_SIZE];
+    }
+
+    // Lexes the whole source up front. Only for a lexer created from a string, since the tokens refer back to it.
+    public TokenStream lex() {
+        TokenStream tokens = new TokenStream(source);
+        TokenType type;
+        do {
+            type = next();
+            tokens.add(type, start, current - start, line);
+        } while (type != TokenType.EOF);
+
+        return tokens;
+    }
+
+    // Lexes up to the end of the next token and returns its type; text() and line() then describe that token.
+    // Returns EOF once the source is exhausted.
+    TokenType next() {
+        for (;;) {
+            start = current;
+            if (eof()) return TokenType.EOF;
+            TokenType type = lexOne();
+            if (type != null) return type;
+        }
+    }
+
+    String text() {
+        return new String(window, start - windowStart, current - start);
+    }
+
+    int line() {
+        return line;
+    }
+
+    private boolean eof() {
+        return !available(current);
+    }
+
+    private boolean available(int offset) {
+        while (offset >= windowStart + windowCount) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+
+    private boolean fill() {
+        if (drained) return false;
+
+        // Slide the current token to the front, growing the window if the token alone fills it.
+        int keep = windowStart + windowCount - start;
+        System.arraycopy(window, start - windowStart, window, 0, keep);
+        windowStart = start;
+        windowCount = keep;
+        if (keep == window.length) window = Arrays.copyOf(window, keep * 2);
+
+        try {
+            int read = reader.read(window, keep, window.length - keep);
+            if (read == -1) {
+                drained = true;
+                return false;
+            }
+            windowCount += read;
+            return true;
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    private char consume() {
+        return window[current++ - windowStart];
+    }
+    private char peek() {
+        return peek(0);
+    }
+    private char peek(int n) {
+        if (!available(current + n)) return '\0';
+        return window[current + n - windowStart];
+    }
+
+    private boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private boolean isAlphanumeric(char c) {
+        return isAlpha(c) || isDigit(c);
+    }
+
+    // Returns null for whitespace, comments and errors.
+    private TokenType lexOne() {
+        char c = consume();
+        return switch (c) {
+            case '(' -> TokenType.LEFT_PAREN;
+            case ')' -> TokenType.RIGHT_PAREN;
+            case '{' -> TokenType.LEFT_BRACE;
+            case '}' -> TokenType.RIGHT_BRACE;
+            case ',' -> TokenType.COMMA;
+            case '.' -> TokenType.DOT;
+            case '-' -> TokenType.MINUS;
+            case '+' -> TokenType.PLUS;
+            case ';' -> TokenType.SEMICOLON;
+            case '*' -> TokenType.STAR;
+            case '!' -> match('=') ? TokenType.BANG_EQUAL : TokenType.BANG;
+            case '=' -> match('=') ? TokenType.EQUAL_EQUAL : TokenType.EQUAL;
+            case '<' -> match('=') ? TokenType.LESS_EQUAL : TokenType.LESS;
+            case '>' -> match('=') ? TokenType.GREATER_EQUAL : TokenType.GREATER;
+            case '/' -> {
+                if (peek() != '/') yield TokenType.SLASH;
+                // The newline is left for the whitespace case to count.
+                while (peek() != '\n' && !eof()) consume();
+                yield null;
+            }
+            // Ignore whitespace.
+            case ' ', '\r', '\t' -> null;
+            case '\n' -> {
+                line++;
+                yield null;
+            }
+            case '"' -> lexString();
+            default -> {
+                if (isDigit(c)) yield lexNumber();
+                if (isAlpha(c)) yield lexIdentifier();
+                diagnostics.error(line, "Unexpected character.");
+                yield null;
+            }
+        };
+    }
+
+    private boolean match(char expected) {
+        if (peek() != expected) return false;
+        current++;
+        return true;
+    }
+
+    private TokenType lexString() {
+        while (peek() != '"' && !eof()) {
+            if (peek() == '\n') line++;
+            consume();
+        }
+        if (eof()) {
+            diagnostics.error(line, "Unterminated string.");
+            return null;
+        }
+        consume();
+        return TokenType.STRING;
+    }
+
+    private TokenType lexNumber() {
+        while (isDigit(peek())) consume();
+        if (peek() == '.' && isDigit(peek(1))) {
+            consume();
+            while (isDigit(peek())) consume();
+        }
+        return TokenType.NUMBER;
+    }
+
+    private TokenType lexIdentifier() {
+        while (isAlphanumeric(peek())) consume();
+        return identifierType();
+    }
+
+    // Recognizes keywords straight from the window, branching on the first character or two, so no String is
+    // built for an identifier just to look it up.
+    private TokenType identifierType() {
+        int at = start - windowStart;
+        return switch (window[at]) {
+            case 'a' -> keyword(1, "nd", TokenType.AND);
+            case 'c' -> keyword(1, "lass", TokenType.CLASS);
+            case 'e' -> keyword(1, "lse", TokenType.ELSE);
+            case 'f' -> current - start < 2 ? TokenType.IDENTIFIER : switch (window[at + 1]) {
+                case 'a' -> keyword(2, "lse", TokenType.FALSE);
+                case 'o' -> keyword(2, "r", TokenType.FOR);
+                case 'u' -> keyword(2, "n", TokenType.FUN);
+                default -> TokenType.IDENTIFIER;
+            };
+            case 'i' -> keyword(1, "f", TokenType.IF);
+            case 'n' -> keyword(1, "il", TokenType.NIL);
+            case 'o' -> keyword(1, "r", TokenType.OR);
+            case 'p' -> keyword(1, "rint", TokenType.PRINT);
+            case 'r' -> keyword(1, "eturn", TokenType.RETURN);
+            case 's' -> keyword(1, "uper", TokenType.SUPER);
+            case 't' -> current - start < 2 ? TokenType.IDENTIFIER : switch (window[at + 1]) {
+                case 'h' -> keyword(2, "is", TokenType.THIS);
+                case 'r' -> keyword(2, "ue", TokenType.TRUE);
+                default -> TokenType.IDENTIFIER;
+            };
+            case 'v' -> keyword(1, "ar", TokenType.VAR);
+            case 'w' -> keyword(1, "hile", TokenType.WHILE);
+            default -> TokenType.IDENTIFIER;
+        };
+    }
+
+    private TokenType keyword(int offset, String rest, TokenType type) {
+        if (current - start != offset + rest.length()) return TokenType.IDENTIFIER;
+
+        int at = start - windowStart + offset;
+        for (int i = 0; i < rest.length(); i++) {
+            if (window[at + i] != rest.charAt(i)) return TokenType.IDENTIFIER;
+        }
+        return type;
+    }
+
+}
@@ -0,0 +1,26 @@
+package lox;
+
+import java.util.List;
+
+// Base class for functions written in Java that take more than three arguments, which they get as a list.
+// Otherwise they work like a NativeFunction.
+public abstract class ListNativeFunction implements LoxCallable {
+    private final int arity;
+
+    protected ListNativeFunction(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public final int arity() {
+        return arity;
+    }
+
+    @Override
+    public abstract Object call(Interpreter interpreter, List<Object> arguments);
+
+    @Override
+    public String toString() {
+        return "<native fn>";
+    }
+}
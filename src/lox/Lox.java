@@ -0,0 +1,133 @@
+package lox;
+
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// An independent Lox runtime with its own globals, output and diagnostics. The only mutable state isolates share
+// is the thread-safe table of interned identifiers, so separate ones can run scripts on separate threads at the
+// same time. A single isolate is used by one thread at a time, and globals defined by one script are visible to
+// the next one it runs, as in the REPL.
+public class Lox {
+    private final Diagnostics diagnostics;
+    private final PrintStream out;
+    private final Interpreter interpreter;
+    // Created on first use by --vm.
+    private VM vm = null;
+    // Natives defined by the embedder, kept to be defined in the VM as well once it exists.
+    private final Map<Symbol, LoxCallable> natives = new LinkedHashMap<>();
+
+    // Compile to bytecode and run on the VM instead of walking the tree.
+    boolean useVm = false;
+
+    // Run each top-level statement of a script read from a Reader as soon as it is parsed.
+    boolean streaming = false;
+
+    // Reuse the resolved tree of a script that has not changed since it last ran.
+    AstCache cache = null;
+
+    // Print each optimized top-level statement before running it.
+    boolean dumpAst = false;
+
+    public Lox() {
+        this(System.out, new Diagnostics());
+    }
+
+    public Lox(PrintStream out, Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        this.out = out;
+        this.interpreter = new Interpreter(diagnostics, out);
+    }
+
+    public Diagnostics diagnostics() {
+        return diagnostics;
+    }
+
+    // Makes a Java function, usually a NativeFunction, available to scripts as a global of the given name.
+    public void define(String name, LoxCallable function) {
+        Symbol symbol = Symbol.intern(name);
+        natives.put(symbol, function);
+        interpreter.globals.define(symbol, function);
+        if (vm != null) vm.define(symbol, function);
+    }
+
+    Interpreter interpreter() {
+        return interpreter;
+    }
+
+    // Each run starts with the diagnostics reset, so afterwards they report on that run alone.
+    public void run(String source) {
+        diagnostics.reset();
+        PreparedScript script = PreparedScript.compile(source, diagnostics);
+        if (script != null) execute(script.statements());
+    }
+
+    public void run(PreparedScript script) {
+        diagnostics.reset();
+        execute(script.statements());
+    }
+
+    // The source is lexed as it is read rather than loaded whole.
+    public void run(Reader source) {
+        diagnostics.reset();
+        Parser parser = new Parser(new TokenWindow(new Lexer(source, diagnostics)), diagnostics);
+        if (streaming) {
+            runIncrementally(parser);
+        } else {
+            // Nothing has been reported since the reset.
+            PreparedScript script = PreparedScript.compile(parser, diagnostics, 0);
+            if (script != null) execute(script.statements());
+        }
+    }
+
+    void runCached(byte[] source) {
+        diagnostics.reset();
+        List<Stmt> statements = cache.load(source);
+        if (statements == null) {
+            PreparedScript script = PreparedScript.compile(new String(source, Charset.defaultCharset()), diagnostics);
+            if (script == null) return;
+            statements = script.statements();
+            cache.store(source, statements);
+        }
+        execute(statements);
+    }
+
+    // Statements run until the first error; after a compile error the rest are still parsed and resolved to
+    // report any others.
+    private void runIncrementally(Parser parser) {
+        Resolver resolver = new Resolver(diagnostics);
+        while (parser.hasNext() && !diagnostics.hadRuntimeError()) {
+            Stmt statement = parser.next();
+            // A syntax error, already reported.
+            if (statement == null) continue;
+
+            List<Stmt> statements = List.of(statement);
+            resolver.resolve(statements);
+            if (!diagnostics.hadError()) execute(new Optimizer().optimize(statements));
+        }
+    }
+
+    private void execute(List<Stmt> statements) {
+        if (dumpAst) {
+            ASTPrinter printer = new ASTPrinter();
+            for (Stmt statement : statements) {
+                out.println(printer.print(statement));
+            }
+        }
+
+        if (useVm) {
+            VmFunction function = Compiler.compile(statements, diagnostics);
+            if (diagnostics.hadError()) return;
+            if (vm == null) {
+                vm = new VM(diagnostics, out);
+                natives.forEach(vm::define);
+            }
+            vm.interpret(function);
+        } else {
+            interpreter.interpret(statements);
+        }
+    }
+}
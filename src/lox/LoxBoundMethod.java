@@ -0,0 +1,29 @@
+package lox;
+
+import java.util.List;
+
+// A method read off an instance as a first-class value. Direct calls like obj.method() never create one.
+class LoxBoundMethod implements LoxCallable {
+    final LoxInstance receiver;
+    final LoxFunction method;
+
+    LoxBoundMethod(LoxInstance receiver, LoxFunction method) {
+        this.receiver = receiver;
+        this.method = method;
+    }
+
+    @Override
+    public int arity() {
+        return method.arity();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return method.callMethod(interpreter, receiver, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+}
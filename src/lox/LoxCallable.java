@@ -0,0 +1,27 @@
+package lox;
+
+import java.util.Arrays;
+import java.util.List;
+
+public interface LoxCallable {
+    int arity();
+    Object call(Interpreter interpreter, List<Object> arguments);
+
+    // Entry points for calls with up to three arguments, which the interpreter and VM use so that a callable
+    // overriding them never needs an argument list. By default they build one.
+    default Object call0(Interpreter interpreter) {
+        return call(interpreter, List.of());
+    }
+
+    default Object call1(Interpreter interpreter, Object a) {
+        return call(interpreter, Arrays.asList(a));
+    }
+
+    default Object call2(Interpreter interpreter, Object a, Object b) {
+        return call(interpreter, Arrays.asList(a, b));
+    }
+
+    default Object call3(Interpreter interpreter, Object a, Object b, Object c) {
+        return call(interpreter, Arrays.asList(a, b, c));
+    }
+}
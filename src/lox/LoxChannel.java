@@ -0,0 +1,26 @@
+package lox;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// An unbounded queue of values between Lox tasks: sending never blocks, and receiving waits for a value.
+class LoxChannel {
+    // Stands in for nil, which the queue can't hold.
+    private static final Object NIL = new Object();
+
+    private final BlockingQueue<Object> values = new LinkedBlockingQueue<>();
+
+    void send(Object value) {
+        values.add(value == null ? NIL : value);
+    }
+
+    Object receive() throws InterruptedException {
+        Object value = values.take();
+        return value == NIL ? null : value;
+    }
+
+    @Override
+    public String toString() {
+        return "<channel>";
+    }
+}
@@ -0,0 +1,65 @@
+package lox;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class LoxClass implements LoxCallable {
+    final String name;
+    // In the order they are declared, so a method's index is the same in every class made from the declaration.
+    private final LoxFunction[] methods;
+    private final Map<Symbol, Integer> indexes = new HashMap<>();
+
+    // Root of the shape tree for this class's instances, shared with every class made from the same declaration,
+    // and the most fields any of them has grown to.
+    final Shape shape;
+    int expectedFields = 0;
+
+    LoxClass(Stmt.Class declaration, LoxFunction[] methods) {
+        this.name = declaration.name.lexeme;
+        this.shape = declaration.shape;
+        this.methods = methods;
+        // A later method of the same name replaces an earlier one.
+        for (int i = 0; i < methods.length; i++) {
+            indexes.put(declaration.methods.get(i).name.symbol, i);
+        }
+    }
+
+    LoxFunction findMethod(Symbol name) {
+        Integer index = indexes.get(name);
+        return index == null ? null : methods[index];
+    }
+
+    // Returns -1 if there is no such method.
+    int methodIndex(Symbol name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    LoxFunction method(int index) {
+        return methods[index];
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    @Override
+    public int arity() {
+        LoxFunction initializer = findMethod(Symbol.INIT);
+        if (initializer == null) return 0;
+        return initializer.arity();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        LoxInstance instance = new LoxInstance(this);
+        if (interpreter.metrics != null) interpreter.metrics.instanceAllocated();
+        LoxFunction initializer = findMethod(Symbol.INIT);
+        if (initializer != null) {
+            initializer.callMethod(interpreter, instance, arguments);
+        }
+        return instance;
+    }
+}
\ No newline at end of file
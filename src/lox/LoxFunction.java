@@ -0,0 +1,133 @@
+package lox;
+
+import java.util.List;
+
+public class LoxFunction implements LoxCallable {
+    private final Stmt.Function declaration;
+    private final Environment closure;
+    private final boolean isInitializer;
+
+    LoxFunction(Stmt.Function declaration, Environment closure, boolean isInitializer) {
+        this.isInitializer = isInitializer;
+        this.declaration = declaration;
+        this.closure = closure;
+    }
+
+    LoxBoundMethod bind(LoxInstance instance) {
+        return new LoxBoundMethod(instance, this);
+    }
+
+    @Override
+    public int arity() {
+        return declaration.params.size();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Environment environment = frame(interpreter);
+        for (Object argument : arguments) environment.define(argument);
+        return call(interpreter, environment);
+    }
+
+    @Override
+    public Object call0(Interpreter interpreter) {
+        return call(interpreter, frame(interpreter));
+    }
+
+    @Override
+    public Object call1(Interpreter interpreter, Object a) {
+        Environment environment = frame(interpreter);
+        environment.define(a);
+        return call(interpreter, environment);
+    }
+
+    @Override
+    public Object call2(Interpreter interpreter, Object a, Object b) {
+        Environment environment = frame(interpreter);
+        environment.define(a);
+        environment.define(b);
+        return call(interpreter, environment);
+    }
+
+    @Override
+    public Object call3(Interpreter interpreter, Object a, Object b, Object c) {
+        Environment environment = frame(interpreter);
+        environment.define(a);
+        environment.define(b);
+        environment.define(c);
+        return call(interpreter, environment);
+    }
+
+    // A method runs in a single activation frame holding 'this' in slot zero followed by its parameters, so
+    // calling it needs neither a bound method nor a separate environment for the receiver.
+    Object callMethod(Interpreter interpreter, LoxInstance instance, List<Object> arguments) {
+        Environment environment = frame(interpreter);
+        environment.define(instance);
+        for (Object argument : arguments) environment.define(argument);
+        return call(interpreter, environment);
+    }
+
+    boolean isInitializer() {
+        return isInitializer;
+    }
+
+    // A new activation frame. The caller defines the receiver, if any, and then the arguments in it, and passes
+    // it to call(), so that no argument list is needed in between.
+    Environment frame(Interpreter interpreter) {
+        if (interpreter.metrics != null) interpreter.metrics.environmentAllocated();
+        return new Environment(closure);
+    }
+
+    // Runs the body, then any call it made in tail position, in a loop rather than nested on the Java stack.
+    // A function tail-calling itself also reuses its frame, unless a closure may have captured it.
+    Object call(Interpreter interpreter, Environment environment) {
+        // An initializer returns its receiver, which is in slot zero of its frame.
+        Object instance = isInitializer ? environment.getAt(0, 0) : null;
+        LoxFunction function = this;
+        for (;;) {
+            Object result = function.run(interpreter, environment);
+            LoxFunction next = interpreter.tailFunction;
+            if (next == null) return isInitializer ? instance : result;
+
+            LoxInstance receiver = interpreter.tailReceiver;
+            interpreter.tailFunction = null;
+            interpreter.tailReceiver = null;
+
+            if (next == function && !function.declaration.hasClosures) {
+                environment.clear();
+            } else {
+                environment = next.frame(interpreter);
+            }
+            if (receiver != null) environment.define(receiver);
+            interpreter.takeTailArguments(environment);
+            function = next;
+        }
+    }
+
+    private Object run(Interpreter interpreter, Environment environment) {
+        Profiler profiler = interpreter.profiler;
+        Metrics metrics = interpreter.metrics;
+        if (profiler == null && metrics == null) return execute(interpreter, environment);
+
+        if (profiler != null) profiler.enter(declaration);
+        long start = metrics != null ? System.nanoTime() : 0;
+        try {
+            return execute(interpreter, environment);
+        } finally {
+            if (metrics != null) metrics.function(declaration, System.nanoTime() - start);
+            if (profiler != null) profiler.exit();
+        }
+    }
+
+    private Object execute(Interpreter interpreter, Environment environment) {
+        if (interpreter.executeBlock(declaration.body, environment) == Completion.RETURN) {
+            return interpreter.takeReturnValue();
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "<fn " + declaration.name.lexeme + ">";
+    }
+}
@@ -0,0 +1,44 @@
+package lox;
+
+import java.util.Arrays;
+
+// Instances can be shared between tasks. Stores are made under the instance's lock, so two tasks adding
+// different fields at once both keep theirs, while loads take no lock: the field array is grown before the
+// new shape is published, so a load that sees a shape also sees room for all of its slots.
+class LoxInstance {
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    final LoxClass klass;
+    volatile Shape shape;
+    private Object[] fields;
+
+    LoxInstance(LoxClass klass) {
+        this.klass = klass;
+        this.shape = klass.shape;
+        this.fields = klass.expectedFields == 0 ? NO_FIELDS : new Object[klass.expectedFields];
+    }
+
+    Object getField(int slot) {
+        return fields[slot];
+    }
+
+    void setField(int slot, Object value) {
+        fields[slot] = value;
+    }
+
+    // Moves the instance to a shape with one more field. The class remembers how many fields its instances
+    // grow to, so later instances are allocated with room for all of them up front. Called with the
+    // instance's lock held.
+    void transition(Shape next) {
+        if (next.size > fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(next.size, klass.expectedFields));
+        }
+        if (next.size > klass.expectedFields) klass.expectedFields = next.size;
+        shape = next;
+    }
+
+    @Override
+    public String toString() {
+        return klass.name + " instance";
+    }
+}
@@ -0,0 +1,69 @@
+package lox;
+
+import java.util.ArrayDeque;
+
+// A Lox string made by concatenation. Its two parts are kept as they are until the characters are needed, for
+// printing or comparing, and are then copied once into a single String. Building a string with repeated + so
+// takes linear rather than quadratic time. Strings that never take part in a long concatenation stay plain
+// Java Strings, and every string operation accepts either.
+final class LoxString {
+    // Shorter results are just copied, which costs less than a node and a later flatten.
+    private static final int MIN_LENGTH = 64;
+
+    private record Concat(Object left, Object right) {}
+
+    final int length;
+    // A Concat whose parts are each a String or a LoxString, until it is replaced by the flattened String. It is
+    // a single field read once per use, so a flatten on another thread is seen either whole or not at all.
+    private Object contents;
+
+    private LoxString(Concat contents, int length) {
+        this.contents = contents;
+        this.length = length;
+    }
+
+    static boolean isString(Object value) {
+        return value instanceof String || value instanceof LoxString;
+    }
+
+    // Both operands must be strings.
+    static Object concat(Object left, Object right) {
+        int length = length(left) + length(right);
+        if (length < MIN_LENGTH) return left.toString() + right;
+        return new LoxString(new Concat(left, right), length);
+    }
+
+    private static int length(Object string) {
+        return string instanceof LoxString rope ? rope.length : ((String) string).length();
+    }
+
+    @Override
+    public String toString() {
+        Object contents = this.contents;
+        if (contents instanceof String flat) return flat;
+
+        // Fills the characters in from the end, taking the right part first. A string built up in a loop is one
+        // long chain of left parts, so this walks it with an explicit stack rather than recursing.
+        char[] chars = new char[length];
+        int end = length;
+        ArrayDeque<Object> parts = new ArrayDeque<>();
+        parts.push(contents);
+        while (!parts.isEmpty()) {
+            Object part = parts.pop();
+            if (part instanceof LoxString rope) part = rope.contents;
+
+            if (part instanceof Concat concat) {
+                parts.push(concat.left);
+                parts.push(concat.right);
+            } else {
+                String string = (String) part;
+                end -= string.length();
+                string.getChars(0, string.length(), chars, end);
+            }
+        }
+
+        String flat = new String(chars);
+        this.contents = flat;
+        return flat;
+    }
+}
@@ -0,0 +1,179 @@
+package lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Press ⇧ twice to open the Search Everywhere dialog and type `show whitespaces`,
+// then press Enter. You can now see whitespace characters in your code.
+public class Main {
+    // The command line runs everything in a single isolate, which reports errors on stderr as they happen.
+    private static final Lox lox = new Lox(System.out, new Diagnostics(System.err));
+
+    // Name the interpreter's counters are registered under when --metrics is given.
+    private static final String METRICS_NAME = "lox:type=Metrics";
+
+    // Set by --stack-size: run the script on a thread with a Java stack of this many bytes, which allows deeper
+    // recursion before a Lox stack overflow. Zero keeps the JVM's default.
+    private static long stackSize = 0;
+
+    // How often --profile samples the interpreter's Lox call stack.
+    private static final long PROFILE_INTERVAL_MILLIS = 10;
+
+
+    public static void main(String[] args) throws IOException {
+        String script = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--vm")) {
+                lox.useVm = true;
+            } else if (arg.equals("--stream")) {
+                lox.streaming = true;
+            } else if (arg.equals("--dump-ast")) {
+                lox.dumpAst = true;
+            } else if (arg.equals("--cache") && i + 1 < args.length) {
+                lox.cache = new AstCache(Paths.get(args[++i]));
+            } else if (arg.equals("--profile") && i + 1 < args.length) {
+                profile(Paths.get(args[++i]));
+            } else if (arg.equals("--metrics") && i + 1 < args.length) {
+                collectMetrics(Paths.get(args[++i]));
+            } else if (arg.equals("--max-depth") && i + 1 < args.length) {
+                lox.interpreter().maxDepth = (int) parseNumber(args[++i]);
+            } else if (arg.equals("--stack-size") && i + 1 < args.length) {
+                stackSize = parseSize(args[++i]);
+            } else if (arg.startsWith("--") || script != null) {
+                usage();
+            } else {
+                script = arg;
+            }
+        }
+
+        if (stackSize == 0) {
+            start(script);
+            return;
+        }
+
+        String path = script;
+        Thread thread = new Thread(null, () -> {
+            try {
+                start(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, "lox-main", stackSize);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void usage() {
+        System.out.println("usage: jlox [--vm] [--stream] [--cache dir] [--dump-ast] [--profile file]"
+                + " [--metrics file] [--max-depth n] [--stack-size bytes[k|m|g]] [script]");
+        System.exit(64);
+    }
+
+    private static long parseSize(String size) {
+        long unit = switch (Character.toLowerCase(size.charAt(size.length() - 1))) {
+            case 'k' -> 1L << 10;
+            case 'm' -> 1L << 20;
+            case 'g' -> 1L << 30;
+            default -> 1;
+        };
+        return parseNumber(unit == 1 ? size : size.substring(0, size.length() - 1)) * unit;
+    }
+
+    private static long parseNumber(String digits) {
+        try {
+            long number = Long.parseLong(digits);
+            if (number > 0 && number <= Integer.MAX_VALUE) return number;
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        usage();
+        return 0;
+    }
+
+    // Runs the script, or the REPL when there is none.
+    private static void start(String script) throws IOException {
+
+        // A streamed script runs before it has all been read, so there is no whole tree to cache.
+        if (script != null && lox.cache != null && !lox.streaming) {
+            lox.runCached(Files.readAllBytes(Paths.get(script)));
+            exitOnError();
+            return;
+        }
+
+        if (script != null) {
+            InputStream input = Files.newInputStream(Paths.get(script));
+            try (Reader reader = new InputStreamReader(input, Charset.defaultCharset())) {
+                lox.run(reader);
+            }
+            exitOnError();
+            return;
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        for (;;) {
+            System.out.print("> ");
+            String line = reader.readLine();
+            if (line == null) break;
+            lox.run(line);
+            if (lox.diagnostics().hadRuntimeError()) System.exit(70);
+        }
+    }
+
+    private static void exitOnError() {
+        if (lox.diagnostics().hadError()) System.exit(65);
+        if (lox.diagnostics().hadRuntimeError()) System.exit(70);
+    }
+
+    // Samples the tree-walking interpreter's Lox call stack until the process exits, however it exits, and then
+    // writes the collapsed stacks to the given file.
+    private static void profile(Path output) {
+        Profiler profiler = new Profiler(PROFILE_INTERVAL_MILLIS);
+        lox.interpreter().profiler = profiler;
+        profiler.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                profiler.stop(output);
+            } catch (IOException e) {
+                System.err.println("Could not write profile: " + e.getMessage());
+            }
+        }));
+    }
+
+    // Counts what the tree-walking interpreter executes, publishes the counters over JMX while it runs, and
+    // writes them as JSON to the given file when the process exits.
+    private static void collectMetrics(Path output) {
+        Metrics metrics = new Metrics();
+        lox.interpreter().metrics = metrics;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(METRICS_NAME));
+        } catch (JMException e) {
+            System.err.println("Could not register metrics: " + e.getMessage());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Files.writeString(output, metrics.getJson(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("Could not write metrics: " + e.getMessage());
+            }
+        }));
+    }
+}
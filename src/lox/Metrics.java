@@ -0,0 +1,136 @@
+package lox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Execution counters for the tree-walking interpreter: calls and cumulative time per Lox function, statements
+// executed per source line, environments and instances allocated, and calls into native functions. Only
+// collected when an Interpreter has a Metrics attached; otherwise each hook costs a null check.
+//
+// Counters are adders so they can be read over JMX while a script runs. Function times are inclusive, so a
+// recursive function's time counts each nested call again.
+public class Metrics implements MetricsMBean {
+    private static class FunctionStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+
+    private final Map<Stmt.Function, FunctionStats> functions = new ConcurrentHashMap<>();
+    // Statement counts indexed by line. The array grows as lines further down are reached, under the lock so that
+    // tasks running at once don't replace each other's copies; a line's adder, once made, is kept by every copy.
+    private volatile LongAdder[] lines = new LongAdder[256];
+    private final LongAdder instances = new LongAdder();
+    private final LongAdder environments = new LongAdder();
+    private final LongAdder nativeCalls = new LongAdder();
+
+    void statement(int line) {
+        LongAdder[] counts = lines;
+        LongAdder count = line < counts.length ? counts[line] : null;
+        if (count == null) count = addLine(line);
+        count.increment();
+    }
+
+    private synchronized LongAdder addLine(int line) {
+        LongAdder[] counts = lines;
+        if (line >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(counts.length * 2, line + 1));
+        }
+        if (counts[line] == null) counts[line] = new LongAdder();
+        lines = counts;
+        return counts[line];
+    }
+
+    void function(Stmt.Function declaration, long nanos) {
+        FunctionStats stats = functions.computeIfAbsent(declaration, key -> new FunctionStats());
+        stats.calls.increment();
+        stats.nanos.add(nanos);
+    }
+
+    void instanceAllocated() {
+        instances.increment();
+    }
+
+    void environmentAllocated() {
+        environments.increment();
+    }
+
+    void nativeCall() {
+        nativeCalls.increment();
+    }
+
+    @Override
+    public long getStatementsExecuted() {
+        long total = 0;
+        for (LongAdder count : lines) {
+            if (count != null) total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getFunctionCalls() {
+        long total = 0;
+        for (FunctionStats stats : functions.values()) total += stats.calls.sum();
+        return total;
+    }
+
+    @Override
+    public long getInstancesAllocated() {
+        return instances.sum();
+    }
+
+    @Override
+    public long getEnvironmentsAllocated() {
+        return environments.sum();
+    }
+
+    @Override
+    public long getNativeCalls() {
+        return nativeCalls.sum();
+    }
+
+    @Override
+    public String getJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"statementsExecuted\": ").append(getStatementsExecuted()).append(",\n");
+        json.append("  \"functionCalls\": ").append(getFunctionCalls()).append(",\n");
+        json.append("  \"instancesAllocated\": ").append(getInstancesAllocated()).append(",\n");
+        json.append("  \"environmentsAllocated\": ").append(getEnvironmentsAllocated()).append(",\n");
+        json.append("  \"nativeCalls\": ").append(getNativeCalls()).append(",\n");
+
+        // Functions most expensive first.
+        List<Map.Entry<Stmt.Function, FunctionStats>> byTime = new ArrayList<>(functions.entrySet());
+        byTime.sort(Comparator.comparingLong(
+                (Map.Entry<Stmt.Function, FunctionStats> entry) -> entry.getValue().nanos.sum()).reversed());
+        json.append("  \"functions\": [");
+        for (int i = 0; i < byTime.size(); i++) {
+            Stmt.Function function = byTime.get(i).getKey();
+            FunctionStats stats = byTime.get(i).getValue();
+            json.append(i == 0 ? "\n" : ",\n");
+            // Names are identifiers, so they never need escaping.
+            json.append("    {\"name\": \"").append(function.name.lexeme).append('"')
+                    .append(", \"line\": ").append(function.name.line)
+                    .append(", \"calls\": ").append(stats.calls.sum())
+                    .append(", \"totalNanos\": ").append(stats.nanos.sum()).append("}");
+        }
+        json.append(byTime.isEmpty() ? "],\n" : "\n  ],\n");
+
+        LongAdder[] byLine = lines;
+        json.append("  \"lines\": {");
+        boolean first = true;
+        for (int line = 0; line < byLine.length; line++) {
+            if (byLine[line] == null) continue;
+            json.append(first ? "\n" : ",\n");
+            json.append("    \"").append(line).append("\": ").append(byLine[line].sum());
+            first = false;
+        }
+        json.append(first ? "}\n" : "\n  }\n");
+
+        return json.append("}\n").toString();
+    }
+}
@@ -0,0 +1,17 @@
+package lox;
+
+// The JMX view of Metrics, registered as lox:type=Metrics.
+public interface MetricsMBean {
+    long getStatementsExecuted();
+
+    long getFunctionCalls();
+
+    long getInstancesAllocated();
+
+    long getEnvironmentsAllocated();
+
+    long getNativeCalls();
+
+    // Everything, including the per-function and per-line breakdowns, in the form written by --metrics.
+    String getJson();
+}
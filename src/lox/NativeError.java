@@ -0,0 +1,9 @@
+package lox;
+
+// Thrown by a native function for a runtime error. Natives don't know where they were called from, so the
+// interpreter reports it as a RuntimeError at the call.
+public class NativeError extends RuntimeException {
+    public NativeError(String message) {
+        super(message);
+    }
+}
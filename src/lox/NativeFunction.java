@@ -0,0 +1,66 @@
+package lox;
+
+import java.util.List;
+
+// Base class for functions written in Java that take up to three arguments. A native overrides the entry point
+// for its arity and is called without an argument list; the list form forwards to it for callers that only have
+// a list. The other entry points fail with a runtime error naming the one that is missing, rather than falling
+// back to the list form. Natives taking more arguments extend ListNativeFunction instead.
+//
+// Natives report runtime errors by throwing NativeError, and are given a null interpreter when called from the
+// VM.
+public abstract class NativeFunction implements LoxCallable {
+    private final int arity;
+
+    protected NativeFunction(int arity) {
+        if (arity < 0 || arity > 3) {
+            throw new IllegalArgumentException("A NativeFunction takes at most three arguments, not " + arity
+                    + "; extend ListNativeFunction for more.");
+        }
+        this.arity = arity;
+    }
+
+    @Override
+    public final int arity() {
+        return arity;
+    }
+
+    @Override
+    public final Object call(Interpreter interpreter, List<Object> arguments) {
+        return switch (arity) {
+            case 0 -> call0(interpreter);
+            case 1 -> call1(interpreter, arguments.get(0));
+            case 2 -> call2(interpreter, arguments.get(0), arguments.get(1));
+            default -> call3(interpreter, arguments.get(0), arguments.get(1), arguments.get(2));
+        };
+    }
+
+    @Override
+    public Object call0(Interpreter interpreter) {
+        throw notImplemented("call0");
+    }
+
+    @Override
+    public Object call1(Interpreter interpreter, Object a) {
+        throw notImplemented("call1");
+    }
+
+    @Override
+    public Object call2(Interpreter interpreter, Object a, Object b) {
+        throw notImplemented("call2");
+    }
+
+    @Override
+    public Object call3(Interpreter interpreter, Object a, Object b, Object c) {
+        throw notImplemented("call3");
+    }
+
+    private NativeError notImplemented(String method) {
+        return new NativeError("Native function of arity " + arity + " does not implement " + method + "().");
+    }
+
+    @Override
+    public String toString() {
+        return "<native fn>";
+    }
+}
@@ -0,0 +1,43 @@
+package lox;
+
+final class OpCode {
+    // Operand widths are noted next to each instruction; "u8"/"u16" are unsigned big-endian.
+    static final byte CONSTANT = 0;        // u16 constant
+    static final byte NIL = 1;
+    static final byte TRUE = 2;
+    static final byte FALSE = 3;
+    static final byte POP = 4;
+    static final byte GET_LOCAL = 5;       // u8 slot
+    static final byte SET_LOCAL = 6;       // u8 slot
+    static final byte GET_GLOBAL = 7;      // u16 name
+    static final byte DEFINE_GLOBAL = 8;   // u16 name
+    static final byte SET_GLOBAL = 9;      // u16 name
+    static final byte GET_UPVALUE = 10;    // u8 index
+    static final byte SET_UPVALUE = 11;    // u8 index
+    static final byte GET_PROPERTY = 12;   // u16 name
+    static final byte SET_PROPERTY = 13;   // u16 name
+    static final byte EQUAL = 14;
+    static final byte NOT_EQUAL = 15;
+    static final byte GREATER = 16;
+    static final byte GREATER_EQUAL = 17;
+    static final byte LESS = 18;
+    static final byte LESS_EQUAL = 19;
+    static final byte ADD = 20;
+    static final byte SUBTRACT = 21;
+    static final byte MULTIPLY = 22;
+    static final byte DIVIDE = 23;
+    static final byte NOT = 24;
+    static final byte NEGATE = 25;
+    static final byte PRINT = 26;
+    static final byte JUMP = 27;           // u16 forward offset
+    static final byte JUMP_IF_FALSE = 28;  // u16 forward offset
+    static final byte LOOP = 29;           // u16 backward offset
+    static final byte CALL = 30;           // u8 argument count
+    static final byte CLOSURE = 31;        // u16 function, then (u8 isLocal, u8 index) per upvalue
+    static final byte CLOSE_UPVALUE = 32;
+    static final byte RETURN = 33;
+    static final byte CLASS = 34;          // u16 name
+    static final byte METHOD = 35;         // u16 name
+
+    private OpCode() {}
+}
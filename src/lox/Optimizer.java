@@ -0,0 +1,266 @@
+package lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Simplifies the resolved tree before it runs. Operators whose operands are all literals are evaluated once here
+// instead of on every execution, groupings are dropped, and branches and loops whose conditions are literals lose
+// the code that can never run. Folding follows the interpreter exactly: anything that would be a runtime error,
+// such as subtracting a string, is left in place to fail at runtime as before.
+//
+// Nodes whose children did not change are reused, so the depths and slots the Resolver recorded are kept.
+class Optimizer implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    List<Stmt> optimize(List<Stmt> statements) {
+        List<Stmt> optimized = new ArrayList<>(statements.size());
+        for (Stmt statement : statements) {
+            Stmt result = optimize(statement);
+            // A statement that optimized away entirely is dropped.
+            if (result != null) optimized.add(result);
+        }
+        return optimized;
+    }
+
+    // Returns null for a statement that does nothing.
+    private Stmt optimize(Stmt stmt) {
+        return stmt.accept(this);
+    }
+
+    private Expr optimize(Expr expr) {
+        return expr.accept(this);
+    }
+
+    // Where a statement is required, one that optimized away becomes an empty block.
+    private Stmt required(Stmt stmt) {
+        Stmt result = optimize(stmt);
+        return result != null ? result : at(stmt, new Stmt.Block(List.of()));
+    }
+
+    // A rebuilt statement keeps the line of the one it replaces.
+    private static <T extends Stmt> T at(Stmt original, T replacement) {
+        replacement.line = original.line;
+        return replacement;
+    }
+
+    private static boolean isLiteral(Expr expr) {
+        return expr instanceof Expr.Literal;
+    }
+
+    private static Object valueOf(Expr expr) {
+        return ((Expr.Literal) expr).value;
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = optimize(expr.value);
+        if (value == expr.value) return expr;
+
+        Expr.Assign assign = new Expr.Assign(expr.name, value);
+        assign.depth = expr.depth;
+        assign.slot = expr.slot;
+        return assign;
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr lhs = optimize(expr.lhs);
+        Expr rhs = optimize(expr.rhs);
+
+        if (isLiteral(lhs) && isLiteral(rhs)) {
+            Object folded = fold(expr.operator.type, valueOf(lhs), valueOf(rhs));
+            if (folded != NOT_CONSTANT) return new Expr.Literal(folded);
+        }
+
+        if (lhs == expr.lhs && rhs == expr.rhs) return expr;
+        return new Expr.Binary(lhs, expr.operator, rhs);
+    }
+
+    // Marks an operation that can't be folded, since null is the value nil.
+    private static final Object NOT_CONSTANT = new Object();
+
+    private static Object fold(TokenType operator, Object lhs, Object rhs) {
+        switch (operator) {
+            case EQUAL_EQUAL -> {
+                return Interpreter.isEqual(lhs, rhs);
+            }
+            case BANG_EQUAL -> {
+                return !Interpreter.isEqual(lhs, rhs);
+            }
+        }
+
+        if (lhs instanceof String a && rhs instanceof String b && operator == TokenType.PLUS) return a + b;
+        if (!(lhs instanceof Double) || !(rhs instanceof Double)) return NOT_CONSTANT;
+
+        double a = (double) lhs;
+        double b = (double) rhs;
+        return switch (operator) {
+            case PLUS -> a + b;
+            case MINUS -> a - b;
+            case STAR -> a * b;
+            case SLASH -> a / b;
+            case GREATER -> a > b;
+            case GREATER_EQUAL -> a >= b;
+            case LESS -> a < b;
+            case LESS_EQUAL -> a <= b;
+            default -> NOT_CONSTANT;
+        };
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        Expr callee = optimize(expr.callee);
+        boolean changed = callee != expr.callee;
+
+        List<Expr> arguments = new ArrayList<>(expr.arguments.size());
+        for (Expr argument : expr.arguments) {
+            Expr optimized = optimize(argument);
+            changed |= optimized != argument;
+            arguments.add(optimized);
+        }
+
+        if (!changed) return expr;
+        return new Expr.Call(callee, expr.paren, arguments);
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        Expr object = optimize(expr.object);
+        if (object == expr.object) return expr;
+        return new Expr.Get(object, expr.name);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        // Grouping only matters to the parser.
+        return optimize(expr.expression);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr lhs = optimize(expr.lhs);
+        Expr rhs = optimize(expr.rhs);
+
+        // A literal left operand decides which operand is the result without evaluating the other.
+        if (isLiteral(lhs)) {
+            boolean truthy = Interpreter.isTruthy(valueOf(lhs));
+            boolean shortCircuits = expr.operator.type == TokenType.OR ? truthy : !truthy;
+            return shortCircuits ? lhs : rhs;
+        }
+
+        if (lhs == expr.lhs && rhs == expr.rhs) return expr;
+        return new Expr.Logical(lhs, expr.operator, rhs);
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        Expr object = optimize(expr.object);
+        Expr value = optimize(expr.value);
+        if (object == expr.object && value == expr.value) return expr;
+        return new Expr.Set(object, expr.name, value);
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr rhs = optimize(expr.rhs);
+
+        if (isLiteral(rhs)) {
+            Object value = valueOf(rhs);
+            if (expr.operator.type == TokenType.BANG) return new Expr.Literal(!Interpreter.isTruthy(value));
+            if (expr.operator.type == TokenType.MINUS && value instanceof Double number) {
+                return new Expr.Literal(-number);
+            }
+        }
+
+        if (rhs == expr.rhs) return expr;
+        return new Expr.Unary(expr.operator, rhs);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return expr;
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        return at(stmt, new Stmt.Block(optimize(stmt.statements)));
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        List<Stmt.Function> methods = new ArrayList<>(stmt.methods.size());
+        for (Stmt.Function method : stmt.methods) {
+            methods.add((Stmt.Function) optimize(method));
+        }
+        return at(stmt, new Stmt.Class(stmt.name, methods));
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        Expr expression = optimize(stmt.expression);
+        // A bare literal has no effect.
+        if (isLiteral(expression)) return null;
+        if (expression == stmt.expression) return stmt;
+        return at(stmt, new Stmt.Expression(expression));
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        Stmt.Function function = at(stmt, new Stmt.Function(stmt.name, stmt.params, optimize(stmt.body)));
+        function.hasClosures = stmt.hasClosures;
+        return function;
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        Expr condition = optimize(stmt.condition);
+
+        if (isLiteral(condition)) {
+            Stmt taken = Interpreter.isTruthy(valueOf(condition)) ? stmt.thenBranch : stmt.elseBranch;
+            return taken == null ? null : optimize(taken);
+        }
+
+        Stmt elseBranch = stmt.elseBranch == null ? null : optimize(stmt.elseBranch);
+        return at(stmt, new Stmt.If(condition, required(stmt.thenBranch), elseBranch));
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        Expr expression = optimize(stmt.expression);
+        if (expression == stmt.expression) return stmt;
+        return at(stmt, new Stmt.Print(expression));
+    }
+
+    @Override
+    public Stmt visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.value == null) return stmt;
+        Expr value = optimize(stmt.value);
+        if (value == stmt.value) return stmt;
+        Stmt.Return result = at(stmt, new Stmt.Return(stmt.keyword, value));
+        result.tailCall = stmt.tailCall;
+        return result;
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer == null) return stmt;
+        Expr initializer = optimize(stmt.initializer);
+        if (initializer == stmt.initializer) return stmt;
+        return at(stmt, new Stmt.Var(stmt.name, initializer));
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        Expr condition = optimize(stmt.condition);
+        if (isLiteral(condition) && !Interpreter.isTruthy(valueOf(condition))) return null;
+        return at(stmt, new Stmt.While(condition, required(stmt.body)));
+    }
+}
@@ -1,14 +1,18 @@
+package lox;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class Parser {
     private static class ParseError extends RuntimeException {}
-    private final List<Token> tokens;
+    private final TokenSource tokens;
+    private final Diagnostics diagnostics;
     private int current = 0;
 
-    Parser(List<Token> tokens) {
+    Parser(TokenSource tokens, Diagnostics diagnostics) {
         this.tokens = tokens;
+        this.diagnostics = diagnostics;
     }
 
     List<Stmt> parse() {
@@ -20,11 +24,21 @@ public class Parser {
         return statements;
     }
 
+    // For running a script as it is read: one top-level declaration at a time, null if it had a syntax error.
+    boolean hasNext() {
+        return !isAtEnd();
+    }
+
+    Stmt next() {
+        return declaration();
+    }
+
     private Stmt declaration() {
+        int line = tokens.line(current);
         try {
-            if (match(TokenType.CLASS)) return classDeclaration();
+            if (match(TokenType.CLASS)) return at(line, classDeclaration());
             if (match(TokenType.FUN)) return function("function");
-            if (match(TokenType.VAR)) return varDeclaration();
+            if (match(TokenType.VAR)) return at(line, varDeclaration());
 
             return statement();
         } catch (ParseError error) {
@@ -62,7 +76,7 @@ public class Parser {
         consume(TokenType.RIGHT_PAREN, "Expect ')' after parameters.");
         consume(TokenType.LEFT_BRACE, "Expect '{' before " + kind + " body.");
         List<Stmt> body = block();
-        return new Stmt.Function(name, parameters, body);
+        return at(name.line, new Stmt.Function(name, parameters, body));
     }
 
     private Stmt varDeclaration() {
@@ -78,15 +92,22 @@ public class Parser {
     }
 
     private Stmt statement() {
-        if (match(TokenType.IF)) return ifStatement();
-        if (match(TokenType.PRINT)) return printStatement();
-        if (match(TokenType.RETURN)) return returnStatement();
-        if (match(TokenType.WHILE)) return whileStatement();
-        if (match(TokenType.FOR)) return forStatement();
-        if (match(TokenType.LEFT_BRACE)) return new Stmt.Block(block());
+        int line = tokens.line(current);
+        if (match(TokenType.IF)) return at(line, ifStatement());
+        if (match(TokenType.PRINT)) return at(line, printStatement());
+        if (match(TokenType.RETURN)) return at(line, returnStatement());
+        if (match(TokenType.WHILE)) return at(line, whileStatement());
+        if (match(TokenType.FOR)) return forStatement(line);
+        if (match(TokenType.LEFT_BRACE)) return at(line, new Stmt.Block(block()));
+
 
+        return at(line, expressionStatement());
+    }
 
-        return expressionStatement();
+    // Records the line a statement starts on.
+    private static <T extends Stmt> T at(int line, T stmt) {
+        stmt.line = line;
+        return stmt;
     }
 
     private Stmt whileStatement() {
@@ -98,32 +119,35 @@ public class Parser {
         return new Stmt.While(condition, body);
     }
 
-    private Stmt forStatement() {
+    // The loop is desugared into a while loop. The statements it is built from report the line of the 'for', except
+    // the increment, which reports its own.
+    private Stmt forStatement(int line) {
         consume(TokenType.LEFT_PAREN, "Expect '(' after 'for'.");
         Stmt initializer;
         if (match(TokenType.SEMICOLON)) {
             initializer = null;
         } else if (match(TokenType.VAR)) {
-            initializer = varDeclaration();
+            initializer = at(line, varDeclaration());
         } else {
-            initializer = expressionStatement();
+            initializer = at(line, expressionStatement());
         }
         Expr condition = check(TokenType.SEMICOLON) ? new Expr.Literal(true) : expression();
         consume(TokenType.SEMICOLON, "Expect ';' after loop condition.");
         Expr increment = null;
+        int incrementLine = tokens.line(current);
         if (!check(TokenType.RIGHT_PAREN)) {
             increment = expression();
         }
         consume(TokenType.RIGHT_PAREN, "Expect ')' after for clauses.");
         Stmt body = statement();
         if (increment != null) {
-            body = new Stmt.Block(Arrays.asList(body, new Stmt.Expression(increment)));
+            body = at(line, new Stmt.Block(Arrays.asList(body, at(incrementLine, new Stmt.Expression(increment)))));
         }
 
-        Stmt whileLoop = new Stmt.While(condition, body);
+        Stmt whileLoop = at(line, new Stmt.While(condition, body));
 
         if (initializer != null) {
-            return new Stmt.Block(Arrays.asList(initializer, whileLoop));
+            return at(line, new Stmt.Block(Arrays.asList(initializer, whileLoop)));
         }
 
         return whileLoop;
@@ -322,7 +346,7 @@ public class Parser {
         if (match(TokenType.NIL)) return new Expr.Literal(null);
 
         if (match(TokenType.NUMBER, TokenType.STRING)) {
-            return new Expr.Literal(previous().literal);
+            return new Expr.Literal(tokens.literal(current - 1));
         }
 
         if (match(TokenType.LEFT_PAREN)) {
@@ -347,14 +371,14 @@ public class Parser {
     }
 
     private ParseError error(Token token, String message) {
-        Main.error(token, message);
+        diagnostics.error(token, message);
         return new ParseError();
     }
 
     private boolean match(TokenType... types) {
         for (TokenType type : types) {
             if (check(type)) {
-                advance();
+                current++;
                 return true;
             }
         }
@@ -364,7 +388,7 @@ public class Parser {
 
     private boolean check(TokenType type) {
         if (isAtEnd()) return false;
-        return peek().type == type;
+        return tokens.type(current) == type;
     }
 
     private Token advance() {
@@ -373,9 +397,10 @@ public class Parser {
     }
 
     private boolean isAtEnd() {
-        return peek().type == TokenType.EOF;
+        return tokens.type(current) == TokenType.EOF;
     }
 
+    // Tokens are only materialized when the parser keeps or reports one.
     private Token peek() {
         return tokens.get(current);
     }
@@ -385,18 +410,18 @@ public class Parser {
     }
 
     private void synchronize() {
-        advance();
+        if (!isAtEnd()) current++;
 
         while (!isAtEnd()) {
-            if (previous().type == TokenType.SEMICOLON) return;
+            if (tokens.type(current - 1) == TokenType.SEMICOLON) return;
 
-            switch (peek().type) {
+            switch (tokens.type(current)) {
                 case CLASS, FUN, VAR, FOR, IF, WHILE, PRINT, RETURN -> {
                     return;
                 }
             }
 
-            advance();
+            current++;
         }
     }
 }
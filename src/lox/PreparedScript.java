@@ -0,0 +1,42 @@
+package lox;
+
+import java.util.List;
+
+// A script parsed, resolved and optimized once, ready to run any number of times in any number of isolates,
+// including at the same time on different threads. Resolution is recorded in the tree itself and nothing
+// changes it afterwards, so the tree can be shared. While it runs, only three things are written to it:
+// type feedback at Binary nodes, property caches at Get and Set nodes, and new shapes under each class
+// declaration. None of these holds an isolate's values, so isolates share what they learn and the tree keeps
+// none of them alive. Every use of them is guarded, so a racing update can cost a lookup but never change a
+// result.
+public final class PreparedScript {
+    private final List<Stmt> statements;
+
+    PreparedScript(List<Stmt> statements) {
+        this.statements = List.copyOf(statements);
+    }
+
+    // Returns null if the script does not compile, with the errors reported to the given diagnostics. Only errors
+    // found in this script count; anything reported to the diagnostics before is left alone.
+    public static PreparedScript compile(String source, Diagnostics diagnostics) {
+        int errors = diagnostics.errors();
+        return compile(new Parser(new Lexer(source, diagnostics).lex(), diagnostics), diagnostics, errors);
+    }
+
+    // Takes the error count from before the parser's lexer started, so that lexing errors count too.
+    static PreparedScript compile(Parser parser, Diagnostics diagnostics, int errors) {
+        List<Stmt> statements = parser.parse();
+        // Statements that failed to parse are left as nulls.
+        if (diagnostics.errors() != errors) return null;
+
+        Resolver resolver = new Resolver(diagnostics);
+        resolver.resolve(statements);
+
+        if (diagnostics.errors() != errors) return null;
+        return new PreparedScript(new Optimizer().optimize(statements));
+    }
+
+    List<Stmt> statements() {
+        return statements;
+    }
+}
@@ -0,0 +1,32 @@
+package lox;
+
+// Polymorphic inline cache for a property site: a short chain of entries keyed on the receiver's Shape. For a
+// Get, an entry says where the property lives: in field slot, or, when method is set, at that index in the
+// class's methods. For a Set, it gives the slot to store into and, when the field is new, the shape the instance
+// transitions to. Entries are immutable, so updating a site just means swapping its head.
+//
+// Shapes belong to a class declaration rather than to a runtime class, and entries hold no runtime values, so
+// isolates running the same PreparedScript share the caches and none of them keeps another's objects alive.
+final class PropertyCache {
+    // Shapes a site may see before it gives up on caching.
+    static final int MAX_ENTRIES = 4;
+
+    // Installed once a site has seen too many shapes; lookups there always take the generic path.
+    static final PropertyCache MEGAMORPHIC = new PropertyCache(null, -1, null, -1, null);
+
+    final Shape shape;
+    final int slot;
+    final Shape transition;
+    final int method;
+    final PropertyCache next;
+    final int entries;
+
+    PropertyCache(Shape shape, int slot, Shape transition, int method, PropertyCache next) {
+        this.shape = shape;
+        this.slot = slot;
+        this.transition = transition;
+        this.method = method;
+        this.next = next;
+        this.entries = next == null ? 1 : next.entries + 1;
+    }
+}
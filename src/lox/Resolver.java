@@ -1,16 +1,19 @@
+package lox;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
 class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
-    private final Interpreter interpreter;
-    private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    private final Stack<Map<Symbol, Local>> scopes = new Stack<>();
     private FunctionType currentFunction = FunctionType.NONE;
+    private Stmt.Function currentDeclaration = null;
     private ClassType currentClass = ClassType.NONE;
+    private final Diagnostics diagnostics;
 
-    Resolver(Interpreter interpreter) {
-        this.interpreter = interpreter;
+    Resolver(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
     }
 
     private enum FunctionType {
@@ -24,8 +27,17 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         CLASS
     }
 
+    private static class Local {
+        final int slot;
+        boolean defined = false;
+
+        Local(int slot) {
+            this.slot = slot;
+        }
+    }
+
     private void beginScope() {
-        scopes.push(new HashMap<String, Boolean>());
+        scopes.push(new HashMap<Symbol, Local>());
     }
 
     private void endScope() {
@@ -49,32 +61,48 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     private void declare(Token name) {
         if (scopes.isEmpty()) return;
 
-        Map<String, Boolean> scope = scopes.peek();
-        if (scope.containsKey(name.lexeme)) {
-            Main.error(name, "Already a variable with this name in this scope.");
+        Map<Symbol, Local> scope = scopes.peek();
+        if (scope.containsKey(name.symbol)) {
+            diagnostics.error(name, "Already a variable with this name in this scope.");
         }
-        scope.put(name.lexeme, false);
+        scope.put(name.symbol, new Local(scope.size()));
     }
 
     private void define(Token name) {
         if (scopes.isEmpty()) return;
-        scopes.peek().put(name.lexeme, true);
+        scopes.peek().get(name.symbol).defined = true;
     }
 
-    private void resolveLocal(Expr expr, Token name) {
+    // Returns how many scopes out the name is declared, or -1 if it is a global.
+    private int resolveDepth(Token name) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            if (scopes.get(i).containsKey(name.lexeme)) {
-                interpreter.resolve(expr, scopes.size() - 1 - i);
-                return;
+            if (scopes.get(i).containsKey(name.symbol)) {
+                return scopes.size() - 1 - i;
             }
         }
+        return -1;
+    }
+
+    private int resolveSlot(Token name, int depth) {
+        return scopes.get(scopes.size() - 1 - depth).get(name.symbol).slot;
     }
 
     private void resolveFunction(Stmt.Function function, FunctionType type) {
+        // The enclosing function's frame may outlive its call, held by this one's closure.
+        if (currentDeclaration != null) currentDeclaration.hasClosures = true;
+
         FunctionType enclosingFunction = currentFunction;
+        Stmt.Function enclosingDeclaration = currentDeclaration;
         currentFunction = type;
+        currentDeclaration = function;
 
         beginScope();
+        if (type == FunctionType.METHOD || type == FunctionType.INITIALIZER) {
+            // 'this' shares the method's own frame, ahead of the parameters.
+            Local self = new Local(0);
+            self.defined = true;
+            scopes.peek().put(Symbol.THIS, self);
+        }
         for (Token param : function.params) {
             declare(param);
             define(param);
@@ -83,12 +111,14 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         endScope();
 
         currentFunction = enclosingFunction;
+        currentDeclaration = enclosingDeclaration;
     }
 
     @Override
     public Void visitAssignExpr(Expr.Assign expr) {
         resolve(expr.value);
-        resolveLocal(expr, expr.name);
+        expr.depth = resolveDepth(expr.name);
+        if (expr.depth != -1) expr.slot = resolveSlot(expr.name, expr.depth);
         return null;
     }
 
@@ -140,10 +170,11 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitThisExpr(Expr.This expr) {
         if (currentClass == ClassType.NONE) {
-            Main.error(expr.keyword, "Can't use 'this' outside of a class.");
+            diagnostics.error(expr.keyword, "Can't use 'this' outside of a class.");
             return null;
         }
-        resolveLocal(expr, expr.keyword);
+        expr.depth = resolveDepth(expr.keyword);
+        expr.slot = resolveSlot(expr.keyword, expr.depth);
         return null;
     }
 
@@ -155,11 +186,13 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitVariableExpr(Expr.Variable expr) {
-        if (!scopes.isEmpty() && scopes.peek().get(expr.name.lexeme) == Boolean.FALSE) {
-            Main.error(expr.name, "Can't read local variable in its own initializer.");
+        if (!scopes.isEmpty() && scopes.peek().containsKey(expr.name.symbol)
+                && !scopes.peek().get(expr.name.symbol).defined) {
+            diagnostics.error(expr.name, "Can't read local variable in its own initializer.");
         }
 
-        resolveLocal(expr, expr.name);
+        expr.depth = resolveDepth(expr.name);
+        if (expr.depth != -1) expr.slot = resolveSlot(expr.name, expr.depth);
         return null;
     }
 
@@ -179,18 +212,14 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         declare(stmt.name);
         define(stmt.name);
 
-        beginScope();
-        scopes.peek().put("this", true);
-
         for (Stmt.Function method : stmt.methods) {
             FunctionType declaration = FunctionType.METHOD;
-            if (method.name.lexeme.equals("init")) {
+            if (method.name.symbol == Symbol.INIT) {
                 declaration = FunctionType.INITIALIZER;
             }
             resolveFunction(method, declaration);
         }
 
-        endScope();
         currentClass = enclosingClass;
         return null;
     }
@@ -227,13 +256,15 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitReturnStmt(Stmt.Return stmt) {
         if (currentFunction == FunctionType.NONE) {
-            Main.error(stmt.keyword, "Can't return from top-level code.");
+            diagnostics.error(stmt.keyword, "Can't return from top-level code.");
         }
         if (stmt.value != null) {
             if (currentFunction == FunctionType.INITIALIZER) {
-                Main.error(stmt.keyword, "Can't return a value from an initializer.");
+                diagnostics.error(stmt.keyword, "Can't return a value from an initializer.");
             }
             resolve(stmt.value);
+            // Returning a call's result means the caller's frame is no longer needed once the call is made.
+            stmt.tailCall = stmt.value instanceof Expr.Call && currentFunction != FunctionType.INITIALIZER;
         }
         return null;
     }
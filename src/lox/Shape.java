@@ -0,0 +1,35 @@
+package lox;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The field layout shared by instances that gained the same fields in the same order: which slot of the
+// instance's value array each field lives in. Each class has a tree of shapes rooted at the empty shape, with
+// one transition per field added, so instances built the same way end up sharing a single Shape. Shapes are
+// immutable apart from their transitions, which can be added from several threads at once.
+final class Shape {
+    final int size;
+    private final Map<Symbol, Integer> slots;
+    private final Map<Symbol, Shape> transitions = new ConcurrentHashMap<>();
+
+    Shape() {
+        this.size = 0;
+        this.slots = Map.of();
+    }
+
+    private Shape(Shape parent, Symbol name) {
+        this.size = parent.size + 1;
+        this.slots = new HashMap<>(parent.slots);
+        this.slots.put(name, parent.size);
+    }
+
+    int slotOf(Symbol name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    Shape withField(Symbol name) {
+        return transitions.computeIfAbsent(name, field -> new Shape(this, field));
+    }
+}
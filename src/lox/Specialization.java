@@ -0,0 +1,10 @@
+package lox;
+
+// Type feedback recorded on a Binary node. A node starts out UNINITIALIZED, specializes on the operand types
+// it first sees, and falls back to GENERIC for good as soon as the specialized guard fails.
+enum Specialization {
+    UNINITIALIZED,
+    DOUBLE,
+    STRING,
+    GENERIC
+}
@@ -1,3 +1,5 @@
+package lox;
+
 import java.util.List;
 
 abstract class Stmt {
@@ -12,6 +14,8 @@ abstract class Stmt {
     R visitVarStmt(Var stmt);
     R visitWhileStmt(While stmt);
   }
+
+  int line = 0;
   static class Block extends Stmt {
     Block(List<Stmt> statements) {
       this.statements = statements;
@@ -37,6 +41,7 @@ abstract class Stmt {
 
     final Token name;
     final List<Stmt.Function> methods;
+    Shape shape = new Shape();
   }
   static class Expression extends Stmt {
     Expression(Expr expression) {
@@ -65,6 +70,7 @@ abstract class Stmt {
     final Token name;
     final List<Token> params;
     final List<Stmt> body;
+    boolean hasClosures = false;
   }
   static class If extends Stmt {
     If(Expr condition, Stmt thenBranch, Stmt elseBranch) {
@@ -107,6 +113,7 @@ abstract class Stmt {
 
     final Token keyword;
     final Expr value;
+    boolean tailCall = false;
   }
   static class Var extends Stmt {
     Var(Token name, Expr initializer) {
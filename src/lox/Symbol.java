@@ -0,0 +1,76 @@
+package lox;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// An interned identifier. There is exactly one Symbol per distinct name, so symbols are compared by identity and
+// carry their hash, and a map keyed on them never hashes or compares the characters of a name.
+//
+// The table is shared by every isolate in the process and holds its symbols weakly, so a host that runs many
+// different scripts does not keep the names of those it has finished with. A symbol is only collected once
+// nothing refers to it, so a name interned again afterwards can't meet the old symbol it would differ from.
+final class Symbol {
+    private static final ConcurrentHashMap<String, Entry> table = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Symbol> collected = new ReferenceQueue<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    static final Symbol INIT = intern("init");
+    static final Symbol THIS = intern("this");
+
+    final String name;
+    final int id;
+    private final int hash;
+
+    private Symbol(String name) {
+        this.name = name;
+        this.id = nextId.getAndIncrement();
+        this.hash = name.hashCode();
+    }
+
+    private static final class Entry extends WeakReference<Symbol> {
+        final String name;
+
+        Entry(Symbol symbol) {
+            super(symbol, collected);
+            this.name = symbol.name;
+        }
+    }
+
+    static Symbol intern(String name) {
+        removeCollected();
+        for (;;) {
+            Entry entry = table.get(name);
+            Symbol symbol = entry == null ? null : entry.get();
+            if (symbol != null) return symbol;
+
+            // Another thread may intern the same name at once; only one of the new symbols is installed.
+            symbol = new Symbol(name);
+            Entry created = new Entry(symbol);
+            boolean installed = entry == null ? table.putIfAbsent(name, created) == null
+                    : table.replace(name, entry, created);
+            if (installed) return symbol;
+        }
+    }
+
+    private static void removeCollected() {
+        Reference<? extends Symbol> reference;
+        while ((reference = collected.poll()) != null) {
+            Entry entry = (Entry) reference;
+            table.remove(entry.name, entry);
+        }
+    }
+
+    // equals is left as identity.
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,74 @@
+package lox;
+
+import java.util.concurrent.ThreadFactory;
+
+// The natives for concurrent Lox tasks. spawn(fn) calls fn on a thread of its own with a fresh interpreter
+// that shares the globals of the one that spawned it; channel(), send(channel, value) and receive(channel)
+// pass values between tasks. A task that fails reports its runtime error like the main script would. Tasks
+// do not keep the program alive: it ends when the main script does, so scripts wait for their tasks'
+// results on a channel.
+//
+// Tasks share globals, the variables their functions close over, and any instances they can reach. Defining
+// or assigning a global and adding or storing a field are each atomic, so no write is lost or torn, but
+// nothing orders one task's writes against another's: a task that needs to see another's results waits for
+// them on a channel, and sending a value makes everything the sender did before visible to the receiver.
+// Variables captured in closures are plain slots, so tasks should not assign the same captured variable at
+// once.
+//
+// Tasks run on virtual threads, so a script can have many thousands of them waiting at once.
+final class Tasks {
+    private static final ThreadFactory THREADS = Thread.ofVirtual().name("lox-task-", 0).factory();
+
+    private Tasks() {}
+
+    static void define(Environment globals) {
+        globals.define(Symbol.intern("spawn"), SPAWN);
+        globals.define(Symbol.intern("channel"), CHANNEL);
+        globals.define(Symbol.intern("send"), SEND);
+        globals.define(Symbol.intern("receive"), RECEIVE);
+    }
+
+    private static LoxChannel channel(Object value) {
+        if (value instanceof LoxChannel channel) return channel;
+        throw new NativeError("Expected a channel.");
+    }
+
+    static final LoxCallable SPAWN = new NativeFunction(1) {
+        @Override
+        public Object call1(Interpreter interpreter, Object argument) {
+            if (!(argument instanceof LoxCallable function) || function.arity() != 0) {
+                throw new NativeError("Can only spawn a function that takes no arguments.");
+            }
+            Interpreter task = new Interpreter(interpreter);
+            THREADS.newThread(() -> task.interpret(function)).start();
+            return null;
+        }
+    };
+
+    static final LoxCallable CHANNEL = new NativeFunction(0) {
+        @Override
+        public Object call0(Interpreter interpreter) {
+            return new LoxChannel();
+        }
+    };
+
+    static final LoxCallable SEND = new NativeFunction(2) {
+        @Override
+        public Object call2(Interpreter interpreter, Object channel, Object value) {
+            channel(channel).send(value);
+            return null;
+        }
+    };
+
+    static final LoxCallable RECEIVE = new NativeFunction(1) {
+        @Override
+        public Object call1(Interpreter interpreter, Object channel) {
+            try {
+                return channel(channel).receive();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NativeError("Interrupted while receiving.");
+            }
+        }
+    };
+}
@@ -1,3 +1,5 @@
+package lox;
+
 enum TokenType {
     // Single-character tokens.
     LEFT_PAREN, RIGHT_PAREN, LEFT_BRACE, RIGHT_BRACE,
@@ -24,10 +26,14 @@ public class Token {
     final String lexeme;
     final Object literal;
     final int line;
+    // Interned name of an identifier or 'this'; null for any other token.
+    final Symbol symbol;
 
     Token(TokenType type, String lexeme, Object literal, int line) {
         this.type = type;
-        this.lexeme = lexeme;
+        this.symbol = type == TokenType.IDENTIFIER || type == TokenType.THIS ? Symbol.intern(lexeme) : null;
+        // Share the interned text rather than keeping a copy per occurrence.
+        this.lexeme = symbol != null ? symbol.name : lexeme;
         this.literal = literal;
         this.line = line;
     }
@@ -0,0 +1,13 @@
+package lox;
+
+// What the parser reads tokens from, by position. Positions are only ever read in increasing order, and never
+// more than one token behind the furthest one read.
+interface TokenSource {
+    TokenType type(int index);
+
+    int line(int index);
+
+    Object literal(int index);
+
+    Token get(int index);
+}
@@ -0,0 +1,103 @@
+package lox;
+
+import java.util.Arrays;
+
+// The lexer's output, packed into parallel arrays of token type, source offset, length and line rather than a
+// list of Token objects. Lexemes and literals are only cut out of the source when the parser asks for them.
+class TokenStream implements TokenSource {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // Fixed text of every token type whose lexeme does not vary, so materializing one never copies the source.
+    private static final String[] TEXT = new String[TYPES.length];
+
+    static {
+        String[] text = {
+            "(", ")", "{", "}", ",", ".", "-", "+", ";", "/", "*",
+            "!", "!=", "=", "==", ">", ">=", "<", "<=",
+            null, null, null,
+            "and", "class", "else", "false", "fun", "for", "if", "nil", "or",
+            "print", "return", "super", "this", "true", "var", "while",
+            "",
+        };
+        System.arraycopy(text, 0, TEXT, 0, TEXT.length);
+    }
+
+    private final String source;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int count = 0;
+
+    TokenStream(String source) {
+        this.source = source;
+        int capacity = Math.max(16, source.length() / 4);
+        types = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+    }
+
+    void add(TokenType type, int start, int length, int line) {
+        if (count == types.length) {
+            int capacity = count * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+        }
+        types[count] = (byte) type.ordinal();
+        starts[count] = start;
+        lengths[count] = length;
+        lines[count] = line;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    @Override
+    public int line(int index) {
+        return lines[index];
+    }
+
+    String lexeme(int index) {
+        String text = TEXT[types[index]];
+        if (text != null) return text;
+        return source.substring(starts[index], starts[index] + lengths[index]);
+    }
+
+    @Override
+    public Object literal(int index) {
+        return switch (type(index)) {
+            case NUMBER -> Double.parseDouble(lexeme(index));
+            // Strip the quotes.
+            case STRING -> source.substring(starts[index] + 1, starts[index] + lengths[index] - 1);
+            default -> null;
+        };
+    }
+
+    @Override
+    public Token get(int index) {
+        return new Token(type(index), lexeme(index), literal(index), lines[index]);
+    }
+
+    // The fixed text of a token type, or null for identifiers and literals.
+    static String text(TokenType type) {
+        return TEXT[type.ordinal()];
+    }
+
+    static Object literal(TokenType type, String lexeme) {
+        return switch (type) {
+            case NUMBER -> Double.parseDouble(lexeme);
+            case STRING -> lexeme.substring(1, lexeme.length() - 1);
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package lox;
+
+// Tokens pulled from a lexer on demand, keeping only the last few in a ring. Unlike a TokenStream, lexemes that
+// vary are copied out as each token is lexed, since the lexer does not keep the source behind it.
+class TokenWindow implements TokenSource {
+    // The parser looks at most one token back and one ahead; a power of two for masking.
+    private static final int CAPACITY = 4;
+    private static final int MASK = CAPACITY - 1;
+
+    private final Lexer lexer;
+    private final TokenType[] types = new TokenType[CAPACITY];
+    private final String[] lexemes = new String[CAPACITY];
+    private final int[] lines = new int[CAPACITY];
+    private int count = 0;
+
+    TokenWindow(Lexer lexer) {
+        this.lexer = lexer;
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return types[slot(index)];
+    }
+
+    @Override
+    public int line(int index) {
+        return lines[slot(index)];
+    }
+
+    @Override
+    public Object literal(int index) {
+        int slot = slot(index);
+        return TokenStream.literal(types[slot], lexemes[slot]);
+    }
+
+    @Override
+    public Token get(int index) {
+        int slot = slot(index);
+        return new Token(types[slot], lexemes[slot], literal(index), lines[slot]);
+    }
+
+    private int slot(int index) {
+        while (index >= count) {
+            TokenType type = lexer.next();
+            int slot = count & MASK;
+            types[slot] = type;
+            lexemes[slot] = TokenStream.text(type);
+            if (lexemes[slot] == null) lexemes[slot] = lexer.text();
+            lines[slot] = lexer.line();
+            count++;
+        }
+        return index & MASK;
+    }
+}
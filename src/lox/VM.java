@@ -0,0 +1,364 @@
+package lox;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Stack-based virtual machine for the bytecode produced by Compiler. Values, printing, equality and runtime
+// error messages are shared with the tree-walking Interpreter so both backends behave the same.
+class VM {
+    private static final int FRAMES_MAX = 4096;
+
+    private static class CallFrame {
+        VmClosure closure;
+        int ip;
+        int base;
+    }
+
+    private Object[] stack = new Object[256];
+    private int sp = 0;
+    private final CallFrame[] frames = new CallFrame[FRAMES_MAX];
+    private int frameCount = 0;
+    private VmUpvalue openUpvalues = null;
+
+    private final Map<Symbol, Object> globals = new HashMap<>();
+    private final Diagnostics diagnostics;
+    private final PrintStream out;
+
+    VM(Diagnostics diagnostics, PrintStream out) {
+        this.diagnostics = diagnostics;
+        this.out = out;
+        globals.put(Symbol.intern("clock"), Interpreter.CLOCK);
+    }
+
+    void interpret(VmFunction script) {
+        try {
+            VmClosure closure = new VmClosure(script);
+            push(closure);
+            call(closure, 0);
+            run();
+        } catch (RuntimeError error) {
+            resetStack();
+            diagnostics.runtimeError(error);
+        }
+    }
+
+    void define(Symbol name, Object value) {
+        globals.put(name, value);
+    }
+
+    private void resetStack() {
+        Arrays.fill(stack, 0, sp, null);
+        sp = 0;
+        frameCount = 0;
+        openUpvalues = null;
+    }
+
+    private void push(Object value) {
+        if (sp == stack.length) {
+            stack = Arrays.copyOf(stack, sp * 2);
+        }
+        stack[sp++] = value;
+    }
+
+    private Object pop() {
+        Object value = stack[--sp];
+        stack[sp] = null;
+        return value;
+    }
+
+    private Object peek(int distance) {
+        return stack[sp - 1 - distance];
+    }
+
+    // Reports against the instruction the current frame last executed, so callers must store ip first.
+    private RuntimeError error(String message) {
+        CallFrame frame = frames[frameCount - 1];
+        return new RuntimeError(frame.closure.function.chunk.getLine(frame.ip - 1), message);
+    }
+
+    private double checkNumberOperand(Object operand) {
+        if (!(operand instanceof Double)) throw error("Operand must be a number.");
+        return (double) operand;
+    }
+
+    private void run() {
+        CallFrame frame = frames[frameCount - 1];
+        byte[] code = frame.closure.function.chunk.code;
+        Object[] constants = frame.closure.function.chunk.constants;
+        int ip = frame.ip;
+        int base = frame.base;
+
+        for (;;) {
+            switch (code[ip++]) {
+                case OpCode.CONSTANT -> {
+                    push(constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)]);
+                    ip += 2;
+                }
+                case OpCode.NIL -> push(null);
+                case OpCode.TRUE -> push(true);
+                case OpCode.FALSE -> push(false);
+                case OpCode.POP -> pop();
+                case OpCode.GET_LOCAL -> push(stack[base + (code[ip++] & 0xff)]);
+                case OpCode.SET_LOCAL -> stack[base + (code[ip++] & 0xff)] = peek(0);
+                case OpCode.GET_GLOBAL -> {
+                    Symbol name = (Symbol) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)];
+                    ip += 2;
+                    Object value = globals.get(name);
+                    if (value == null && !globals.containsKey(name)) {
+                        frame.ip = ip;
+                        throw error("Undefined variable '" + name + "'.");
+                    }
+                    push(value);
+                }
+                case OpCode.DEFINE_GLOBAL -> {
+                    Symbol name = (Symbol) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)];
+                    ip += 2;
+                    globals.put(name, pop());
+                }
+                case OpCode.SET_GLOBAL -> {
+                    Symbol name = (Symbol) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)];
+                    ip += 2;
+                    if (!globals.containsKey(name)) {
+                        frame.ip = ip;
+                        throw error("Undefined variable '" + name + "'.");
+                    }
+                    globals.put(name, peek(0));
+                }
+                case OpCode.GET_UPVALUE -> {
+                    VmUpvalue upvalue = frame.closure.upvalues[code[ip++] & 0xff];
+                    push(upvalue.open ? stack[upvalue.index] : upvalue.closed);
+                }
+                case OpCode.SET_UPVALUE -> {
+                    VmUpvalue upvalue = frame.closure.upvalues[code[ip++] & 0xff];
+                    if (upvalue.open) {
+                        stack[upvalue.index] = peek(0);
+                    } else {
+                        upvalue.closed = peek(0);
+                    }
+                }
+                case OpCode.GET_PROPERTY -> {
+                    Symbol name = (Symbol) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)];
+                    ip += 2;
+                    if (!(peek(0) instanceof VmInstance instance)) {
+                        frame.ip = ip;
+                        throw error("Only instances have properties.");
+                    }
+
+                    if (instance.fields.containsKey(name)) {
+                        stack[sp - 1] = instance.fields.get(name);
+                        continue;
+                    }
+
+                    VmClosure method = instance.klass.methods.get(name);
+                    if (method == null) {
+                        frame.ip = ip;
+                        throw error("Undefined property '" + name + "'.");
+                    }
+                    stack[sp - 1] = new VmBoundMethod(instance, method);
+                }
+                case OpCode.SET_PROPERTY -> {
+                    Symbol name = (Symbol) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)];
+                    ip += 2;
+                    if (!(peek(1) instanceof VmInstance instance)) {
+                        frame.ip = ip;
+                        throw error("Only instances have fields.");
+                    }
+
+                    Object value = pop();
+                    instance.fields.put(name, value);
+                    stack[sp - 1] = value;
+                }
+                case OpCode.EQUAL -> {
+                    Object rhs = pop();
+                    stack[sp - 1] = Interpreter.isEqual(stack[sp - 1], rhs);
+                }
+                case OpCode.NOT_EQUAL -> {
+                    Object rhs = pop();
+                    stack[sp - 1] = !Interpreter.isEqual(stack[sp - 1], rhs);
+                }
+                case OpCode.GREATER, OpCode.GREATER_EQUAL, OpCode.LESS, OpCode.LESS_EQUAL,
+                        OpCode.SUBTRACT, OpCode.MULTIPLY, OpCode.DIVIDE -> {
+                    byte op = code[ip - 1];
+                    frame.ip = ip;
+                    double lhs = checkNumberOperand(peek(1));
+                    double rhs = checkNumberOperand(peek(0));
+                    pop();
+                    stack[sp - 1] = switch (op) {
+                        case OpCode.GREATER -> lhs > rhs;
+                        case OpCode.GREATER_EQUAL -> lhs >= rhs;
+                        case OpCode.LESS -> lhs < rhs;
+                        case OpCode.LESS_EQUAL -> lhs <= rhs;
+                        case OpCode.SUBTRACT -> lhs - rhs;
+                        case OpCode.MULTIPLY -> lhs * rhs;
+                        default -> lhs / rhs;
+                    };
+                }
+                case OpCode.ADD -> {
+                    Object rhs = pop();
+                    Object lhs = stack[sp - 1];
+                    if (lhs instanceof Double a && rhs instanceof Double b) {
+                        stack[sp - 1] = a + b;
+                    } else if (LoxString.isString(lhs) && LoxString.isString(rhs)) {
+                        stack[sp - 1] = LoxString.concat(lhs, rhs);
+                    } else {
+                        stack[sp - 1] = null;
+                    }
+                }
+                case OpCode.NOT -> stack[sp - 1] = !Interpreter.isTruthy(stack[sp - 1]);
+                case OpCode.NEGATE -> {
+                    frame.ip = ip;
+                    stack[sp - 1] = -checkNumberOperand(stack[sp - 1]);
+                }
+                case OpCode.PRINT -> out.println(Interpreter.stringify(pop()));
+                case OpCode.JUMP -> ip += (((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)) + 2;
+                case OpCode.JUMP_IF_FALSE -> {
+                    if (Interpreter.isTruthy(peek(0))) {
+                        ip += 2;
+                    } else {
+                        ip += (((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)) + 2;
+                    }
+                }
+                case OpCode.LOOP -> ip = ip + 2 - (((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff));
+                case OpCode.CALL -> {
+                    int argCount = code[ip++] & 0xff;
+                    frame.ip = ip;
+                    callValue(peek(argCount), argCount);
+                    frame = frames[frameCount - 1];
+                    code = frame.closure.function.chunk.code;
+                    constants = frame.closure.function.chunk.constants;
+                    ip = frame.ip;
+                    base = frame.base;
+                }
+                case OpCode.CLOSURE -> {
+                    VmFunction function = (VmFunction) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)];
+                    ip += 2;
+                    VmClosure closure = new VmClosure(function);
+                    for (int i = 0; i < closure.upvalues.length; i++) {
+                        boolean isLocal = code[ip++] == 1;
+                        int index = code[ip++] & 0xff;
+                        closure.upvalues[i] = isLocal ? captureUpvalue(base + index) : frame.closure.upvalues[index];
+                    }
+                    push(closure);
+                }
+                case OpCode.CLOSE_UPVALUE -> {
+                    closeUpvalues(sp - 1);
+                    pop();
+                }
+                case OpCode.RETURN -> {
+                    Object result = pop();
+                    closeUpvalues(base);
+                    frameCount--;
+                    Arrays.fill(stack, base, sp, null);
+                    sp = base;
+                    if (frameCount == 0) return;
+
+                    push(result);
+                    frame = frames[frameCount - 1];
+                    code = frame.closure.function.chunk.code;
+                    constants = frame.closure.function.chunk.constants;
+                    ip = frame.ip;
+                    base = frame.base;
+                }
+                case OpCode.CLASS -> {
+                    push(new VmClass((String) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)]));
+                    ip += 2;
+                }
+                case OpCode.METHOD -> {
+                    Symbol name = (Symbol) constants[((code[ip] & 0xff) << 8) | (code[ip + 1] & 0xff)];
+                    ip += 2;
+                    ((VmClass) peek(1)).methods.put(name, (VmClosure) pop());
+                }
+                default -> throw new IllegalStateException("Unknown opcode " + code[ip - 1] + ".");
+            }
+        }
+    }
+
+    private void callValue(Object callee, int argCount) {
+        if (callee instanceof VmClosure closure) {
+            call(closure, argCount);
+        } else if (callee instanceof VmBoundMethod bound) {
+            stack[sp - argCount - 1] = bound.receiver;
+            call(bound.method, argCount);
+        } else if (callee instanceof VmClass klass) {
+            stack[sp - argCount - 1] = new VmInstance(klass);
+            VmClosure initializer = klass.methods.get(Symbol.INIT);
+            if (initializer != null) {
+                call(initializer, argCount);
+            } else if (argCount != 0) {
+                throw error("Expected 0 arguments but got " + argCount + ".");
+            }
+        } else if (callee instanceof LoxCallable function) {
+            if (argCount != function.arity()) {
+                throw error("Expected " + function.arity() + " arguments but got " + argCount + ".");
+            }
+            // Natives never reach back into the tree-walking interpreter.
+            Object result;
+            try {
+                result = switch (argCount) {
+                    case 0 -> function.call0(null);
+                    case 1 -> function.call1(null, stack[sp - 1]);
+                    case 2 -> function.call2(null, stack[sp - 2], stack[sp - 1]);
+                    case 3 -> function.call3(null, stack[sp - 3], stack[sp - 2], stack[sp - 1]);
+                    default -> function.call(null, Arrays.asList(Arrays.copyOfRange(stack, sp - argCount, sp)));
+                };
+            } catch (NativeError e) {
+                throw error(e.getMessage());
+            }
+            Arrays.fill(stack, sp - argCount - 1, sp, null);
+            sp -= argCount + 1;
+            push(result);
+        } else {
+            throw error("Can only call functions and classes.");
+        }
+    }
+
+    private void call(VmClosure closure, int argCount) {
+        if (argCount != closure.function.arity) {
+            throw error("Expected " + closure.function.arity + " arguments but got " + argCount + ".");
+        }
+        if (frameCount == FRAMES_MAX) {
+            throw error("Stack overflow.");
+        }
+
+        CallFrame frame = frames[frameCount];
+        if (frame == null) {
+            frame = new CallFrame();
+            frames[frameCount] = frame;
+        }
+        frameCount++;
+        frame.closure = closure;
+        frame.ip = 0;
+        frame.base = sp - argCount - 1;
+    }
+
+    private VmUpvalue captureUpvalue(int index) {
+        VmUpvalue previous = null;
+        VmUpvalue upvalue = openUpvalues;
+        while (upvalue != null && upvalue.index > index) {
+            previous = upvalue;
+            upvalue = upvalue.next;
+        }
+
+        if (upvalue != null && upvalue.index == index) return upvalue;
+
+        VmUpvalue created = new VmUpvalue(index);
+        created.next = upvalue;
+        if (previous == null) {
+            openUpvalues = created;
+        } else {
+            previous.next = created;
+        }
+        return created;
+    }
+
+    private void closeUpvalues(int last) {
+        while (openUpvalues != null && openUpvalues.index >= last) {
+            VmUpvalue upvalue = openUpvalues;
+            upvalue.closed = stack[upvalue.index];
+            upvalue.open = false;
+            openUpvalues = upvalue.next;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package lox;
+
+class VmFunction {
+    final String name;
+    final Chunk chunk = new Chunk();
+    int arity = 0;
+    int upvalueCount = 0;
+
+    VmFunction(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        if (name == null) return "<script>";
+        return "<fn " + name + ">";
+    }
+}
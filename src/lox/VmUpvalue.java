@@ -0,0 +1,13 @@
+package lox;
+
+class VmUpvalue {
+    // While open, the variable still lives on the VM stack at index; once its scope ends it is moved into closed.
+    final int index;
+    boolean open = true;
+    Object closed;
+    VmUpvalue next;
+
+    VmUpvalue(int index) {
+        this.index = index;
+    }
+}
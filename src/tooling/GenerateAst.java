@@ -13,46 +13,59 @@ public class GenerateAst {
             System.exit(64);
         }
         String outputDir = args[0];
-        defineAst(outputDir, "Expr", Arrays.asList(
-                "Assign   : Token name, Expr value",
-                "Binary   : Expr lhs, Token operator, Expr rhs",
+        defineAst(outputDir, "Expr", null, Arrays.asList(
+                "Assign   : Token name, Expr value | int depth = -1, int slot = 0",
+                "Binary   : Expr lhs, Token operator, Expr rhs | Specialization specialization = Specialization.UNINITIALIZED",
                 "Call     : Expr callee, Token paren, List<Expr> arguments",
-                "Get      : Expr object, Token name",
+                "Get      : Expr object, Token name | PropertyCache cache = null",
                 "Grouping : Expr expression",
                 "Literal  : Object value",
                 "Logical  : Expr lhs, Token operator, Expr rhs",
-                "Set      : Expr object, Token name, Expr value",
-                "This     : Token keyword",
+                "Set      : Expr object, Token name, Expr value | PropertyCache cache = null",
+                "This     : Token keyword | int depth = -1, int slot = 0",
                 "Unary    : Token operator, Expr rhs",
-                "Variable : Token name"
+                "Variable : Token name | int depth = -1, int slot = 0"
         ));
-        defineAst(outputDir, "Stmt", Arrays.asList(
+        defineAst(outputDir, "Stmt", "int line = 0", Arrays.asList(
                 "Block      : List<Stmt> statements",
-                "Class      : Token name, List<Stmt.Function> methods",
+                "Class      : Token name, List<Stmt.Function> methods | Shape shape = new Shape()",
                 "Expression : Expr expression",
-                "Function   : Token name, List<Token> params, List<Stmt> body",
+                "Function   : Token name, List<Token> params, List<Stmt> body | boolean hasClosures = false",
                 "If         : Expr condition, Stmt thenBranch, Stmt elseBranch",
                 "Print      : Expr expression",
-                "Return     : Token keyword, Expr value",
+                "Return     : Token keyword, Expr value | boolean tailCall = false",
                 "Var        : Token name, Expr initializer",
                 "While      : Expr condition, Stmt body"
         ));
 
     }
 
-    private static void defineAst(String outputDir, String baseName, List<String> types) throws IOException {
+    // baseState, if given, is mutable state shared by every node type, declared once on the base class.
+    private static void defineAst(String outputDir, String baseName, String baseState, List<String> types)
+            throws IOException {
         String path = outputDir + "/" + baseName + ".java";
         PrintWriter writer = new PrintWriter(path, StandardCharsets.UTF_8);
 
+        writer.println("package lox;");
+        writer.println();
         writer.println("import java.util.List;");
         writer.println();
         writer.println("abstract class " + baseName + " {");
         defineVisitor(writer, baseName, types);
 
+        if (baseState != null) {
+            writer.println();
+            for (String field : baseState.split(", ")) {
+                writer.println("  " + field + ";");
+            }
+        }
+
         for (String type : types) {
             String className = type.split(":")[0].trim();
-            String fields = type.split(":")[1].trim();
-            defineType(writer, baseName, className, fields);
+            // Fields after a '|' are not constructor parameters but mutable state filled in by later passes.
+            String[] fields = type.split(":")[1].split("\\|");
+            String state = fields.length > 1 ? fields[1].trim() : null;
+            defineType(writer, baseName, className, fields[0].trim(), state);
         }
 
         writer.println();
@@ -73,7 +86,8 @@ public class GenerateAst {
         writer.println("  }");
     }
 
-    private static void defineType(PrintWriter writer, String baseName, String className, String fieldList) {
+    private static void defineType(PrintWriter writer, String baseName, String className, String fieldList,
+                                   String stateList) {
         writer.println("  static class " + className + " extends " + baseName + " {");
 
         // Constructor.
@@ -99,6 +113,11 @@ public class GenerateAst {
         for (String field : fields) {
             writer.println("    final " + field + ";");
         }
+        if (stateList != null) {
+            for (String field : stateList.split(", ")) {
+                writer.println("    " + field + ";");
+            }
+        }
 
         writer.println("  }");
     }